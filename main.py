@@ -1,7 +1,60 @@
+import gzip
+import zlib
 from time import time
 from fastapi import FastAPI
 from python_research.routes.aqi_route import router
 from fastapi.middleware.cors import CORSMiddleware
+from fastapi.middleware.gzip import GZipMiddleware
+
+
+class GzipRequestMiddleware:
+    """
+    Decompresses request bodies sent with Content-Encoding: gzip.
+    The Java backend gzips its large coordinate payloads before posting them.
+    """
+
+    def __init__(self, app):
+        self.app = app
+
+    async def __call__(self, scope, receive, send):
+        if scope["type"] != "http":
+            return await self.app(scope, receive, send)
+
+        headers = dict(scope["headers"])
+        if headers.get(b"content-encoding", b"").lower() != b"gzip":
+            return await self.app(scope, receive, send)
+
+        chunks = []
+        more_body = True
+        while more_body:
+            message = await receive()
+            chunks.append(message.get("body", b""))
+            more_body = message.get("more_body", False)
+
+        try:
+            body = gzip.decompress(b"".join(chunks))
+        except (OSError, EOFError, zlib.error):
+            await send({"type": "http.response.start", "status": 400,
+                        "headers": [(b"content-type", b"text/plain")]})
+            await send({"type": "http.response.body", "body": b"Invalid gzip request body"})
+            return
+
+        scope = dict(scope)
+        scope["headers"] = [(k, v) for k, v in scope["headers"]
+                            if k not in (b"content-encoding", b"content-length")]
+        scope["headers"].append((b"content-length", str(len(body)).encode()))
+
+        body_sent = False
+
+        async def receive_decompressed():
+            nonlocal body_sent
+            if body_sent:
+                return await receive()
+            body_sent = True
+            return {"type": "http.request", "body": body, "more_body": False}
+
+        await self.app(scope, receive_decompressed, send)
+
 
 app = FastAPI(title="Stealth AQI API", description="API for AQI route analysis and forecasting", version="1.0.0")
 
@@ -13,6 +66,10 @@ app.add_middleware(
     allow_headers=["*"],            
 )
 
+# Compress large JSON responses and accept gzip-compressed request bodies
+app.add_middleware(GZipMiddleware, minimum_size=1024)
+app.add_middleware(GzipRequestMiddleware)
+
 # --- THE ALWAYS-ON HEALTH ROUTE ---
 @app.get("/health")
 async def health_check():
@@ -2,7 +2,7 @@ import asyncio
 import logging
 import os
 from fastapi import APIRouter, HTTPException
-from python_research.schemas.schema import JavaRouteRequest, ForecastRequest, ForecastResponse, RouteRequest
+from python_research.schemas.schema import JavaRouteRequest, ForecastRequest, ForecastResponse, RouteRequest, BatchRouteRequest
 from python_research.services.aqi_engine import fetch_google_aqi_profile, get_cyclical_features, get_aqi_info, get_multi_station_forecast, haversine, interpolate_pollutants, fetch_google_weather_history, fetch_google_aqi_history, weighted_average
 import numpy as np
 from datetime import datetime, timedelta
@@ -139,158 +139,203 @@ async def history_data_all():
         print(f"history_data_all failed: {str(e)}", flush=True)
         raise HTTPException(status_code=500, detail=str(e))
 
+async def compute_station_forecasts():
+    """
+    Steps 1-3: history fetch and LSTM inference for every station.
+    This is the expensive, route-independent part of a forecast.
+    Returns (final_forecast_data, None) or (None, error_response).
+    """
+    # =========================================
+    # STEP 1: Fetch all stations in parallel
+    # =========================================
+    async def fetch_station_data(station_id, coords):
+        weather_task = fetch_google_weather_history(coords["lat"], coords["lon"], http_client)
+        aqi_task = fetch_google_aqi_history(coords["lat"], coords["lon"], http_client)
+        weather_res, aqi_res = await asyncio.gather(weather_task, aqi_task)
+        return station_id, coords, weather_res, aqi_res
+
+    fetch_tasks = [fetch_station_data(sid, co) for sid, co in STATIONS.items()]
+    station_results = await asyncio.gather(*fetch_tasks)
+
+    # =========================================
+    # STEP 2: Build history per station
+    # =========================================
+    station_histories = {}
+    anchor_time = None
+
+    for station_id, coords, weather_res, aqi_res in station_results:
+        if "error" in weather_res or "error" in aqi_res:
+            return None, {"status": "error", "message": f"API failure at {station_id}"}
+
+        combined_history = []
+        w_hist, a_hist = weather_res.get("history", []), aqi_res.get("history", [])
+
+        for w, a in zip(w_hist, a_hist):
+            time_str = a.get("time")
+            cyc = get_cyclical_features(time_str) # <--- Break timestamp
+
+            combined_history.append({
+                "pm2_5": a.get("pm25", 0), "pm10": a.get("pm10", 0),
+                "no2": a.get("no2", 0), "co": a.get("co", 0),
+                "so2": a.get("so2", 0), "o3": a.get("o3", 0),
+                "temp_c": w.get("temp_c", 0), "wind": w.get("wind", 0),
+                "humidity": w.get("humidity", 0),
+                # Extra 7 features for LSTM
+                "hour_sin": cyc["hour_sin"], "hour_cos": cyc["hour_cos"],
+                "date_sin": cyc["date_sin"], "date_cos": cyc["date_cos"],
+                "month_sin": cyc["month_sin"], "month_cos": cyc["month_cos"],
+                "year": cyc["year"]
+            })
+
+        if len(combined_history) < 24:
+            return None, {"status": "error", "message": f"Incomplete data at {station_id}"}
+
+        station_histories[station_id] = combined_history
+
+        if anchor_time is None:
+            last_time_str = aqi_res["history"][-1]["time"]
+            utc_anchor = datetime.fromisoformat(last_time_str.replace("Z", "+00:00"))
+            anchor_time = utc_anchor + timedelta(hours=5, minutes=30)
+
+    # =========================================
+    # STEP 3: Model inference per station
+    # =========================================
+    final_forecast_data = {}
+
+    for station_id, history in station_histories.items():
+        try:
+            raw_forecasts = get_multi_station_forecast(history)
+            station_index = list(STATIONS.keys()).index(station_id)
+            station_key = f"station_{station_index}"
+            
+            if station_key not in raw_forecasts:
+                raise KeyError(f"Key {station_key} missing in LSTM output")
+
+            values = raw_forecasts[station_key]
+            station_list = []
+
+            for i, val in enumerate(values):
+                future_time = anchor_time + timedelta(hours=i+1)
+                v = round(float(val), 2)
+                station_list.append({
+                    "time": future_time.strftime("%I:%M %p"),
+                    "aqi": v,
+                    "health_info": get_aqi_info(v)
+                })
+            final_forecast_data[station_id] = station_list
+
+        except Exception as model_err:
+            print(f"Model Error for {station_id}: {str(model_err)}")
+            return None, {"status": "error", "message": f"Model failed at {station_id}"}
+
+    return final_forecast_data, None
+
+
+def project_route_forecasts(routes, final_forecast_data):
+    """Step 4: cheap IDW projection of the station forecasts onto each route."""
+    # =========================================
+    # STEP 4: Route-specific forecast (PRO-DURGAPUR CALIBRATION)
+    # =========================================
+    # =========================================
+    # STEP 4: ROUTE-SPECIFIC FORECAST (WITH DIVERSIFICATION)
+    # =========================================
+    route_forecasts = {}
+
+    if routes:
+        for idx, route in enumerate(routes):
+            route_name = f"Route_{idx+1}"
+            pts = route.coordinates
+            
+            # --- DIVERSIFICATION LOGIC ---
+           
+            # Route 1: Direct (Model Default)
+            # Route 2: Industry Bias (DSP Side)
+            # Route 3: Residential Bias (Bidhannagar Side)
+            bias_lat, bias_lng = 0.0, 0.0
+            
+            if idx == 1: 
+                bias_lat = (STATIONS["station_3"]["lat"] - pts[0].lat) * 0.15
+                bias_lng = (STATIONS["station_3"]["lon"] - pts[0].lng) * 0.15
+            elif idx == 2: # Route 3 ko Green (Station 0) ki taraf pull karo
+                bias_lat = (STATIONS["station_0"]["lat"] - pts[0].lat) * 0.15
+                bias_lng = (STATIONS["station_0"]["lon"] - pts[0].lng) * 0.15
+
+            route_hourly = []
+            total_hours = len(next(iter(final_forecast_data.values())))
+
+            for hour in range(total_hours):
+                point_aqi_values = []
+                for pt in pts:
+                    # Applying the path bias
+                    adj_lat = pt.lat + bias_lat
+                    adj_lng = pt.lng + bias_lng
+                    
+                    w_sum, w_total = 0, 0
+                    for sid in STATIONS.keys():
+                        d = ((adj_lat - STATIONS[sid]["lat"])**2 + (adj_lng - STATIONS[sid]["lon"])**2)**0.5
+                        # Power 10 for maximum contrast
+                        weight = 1 / ((d**10) + 1e-15)
+                        w_sum += final_forecast_data[sid][hour]["aqi"] * weight
+                        w_total += weight
+                    
+                    point_aqi_values.append(w_sum / w_total)
+
+                route_avg = sum(point_aqi_values) / len(point_aqi_values)
+                route_hourly.append({
+                    "time": final_forecast_data["station_0"][hour]["time"],
+                    "aqi": round(route_avg, 2),
+                    "health_info": get_aqi_info(route_avg)
+                })
+
+            route_forecasts[route_name] = {
+                "forecast": route_hourly,
+                "avg_route_aqi": round(sum(h['aqi'] for h in route_hourly)/len(route_hourly), 2)
+            }
+
+    return route_forecasts
+
+
 @router.post("/predict-all-stations")
 async def predict_all_stations(data: RouteRequest):
     print("DEBUG: Starting multi-station forecast pipeline", flush=True)
 
     try:
-        # =========================================
-        # STEP 1: Fetch all stations in parallel
-        # =========================================
-        async def fetch_station_data(station_id, coords):
-            weather_task = fetch_google_weather_history(coords["lat"], coords["lon"], http_client)
-            aqi_task = fetch_google_aqi_history(coords["lat"], coords["lon"], http_client)
-            weather_res, aqi_res = await asyncio.gather(weather_task, aqi_task)
-            return station_id, coords, weather_res, aqi_res
-
-        fetch_tasks = [fetch_station_data(sid, co) for sid, co in STATIONS.items()]
-        station_results = await asyncio.gather(*fetch_tasks)
-
-        # =========================================
-        # STEP 2: Build history per station
-        # =========================================
-        station_histories = {}
-        anchor_time = None
-
-        for station_id, coords, weather_res, aqi_res in station_results:
-            if "error" in weather_res or "error" in aqi_res:
-                return {"status": "error", "message": f"API failure at {station_id}"}
-
-            combined_history = []
-            w_hist, a_hist = weather_res.get("history", []), aqi_res.get("history", [])
-
-            for w, a in zip(w_hist, a_hist):
-                time_str = a.get("time")
-                cyc = get_cyclical_features(time_str) # <--- Break timestamp
-
-                combined_history.append({
-                    "pm2_5": a.get("pm25", 0), "pm10": a.get("pm10", 0),
-                    "no2": a.get("no2", 0), "co": a.get("co", 0),
-                    "so2": a.get("so2", 0), "o3": a.get("o3", 0),
-                    "temp_c": w.get("temp_c", 0), "wind": w.get("wind", 0),
-                    "humidity": w.get("humidity", 0),
-                    # Extra 7 features for LSTM
-                    "hour_sin": cyc["hour_sin"], "hour_cos": cyc["hour_cos"],
-                    "date_sin": cyc["date_sin"], "date_cos": cyc["date_cos"],
-                    "month_sin": cyc["month_sin"], "month_cos": cyc["month_cos"],
-                    "year": cyc["year"]
-                })
-
-            if len(combined_history) < 24:
-                return {"status": "error", "message": f"Incomplete data at {station_id}"}
+        final_forecast_data, error = await compute_station_forecasts()
+        if error:
+            return error
 
-            station_histories[station_id] = combined_history
+        return {
+            "status": "success",
+            "station_forecasts": final_forecast_data,
+            "route_forecasts": project_route_forecasts(data.routes, final_forecast_data),
+            "meta": {"location": "Durgapur"}
+        }
 
-            if anchor_time is None:
-                last_time_str = aqi_res["history"][-1]["time"]
-                utc_anchor = datetime.fromisoformat(last_time_str.replace("Z", "+00:00"))
-                anchor_time = utc_anchor + timedelta(hours=5, minutes=30)
+    except Exception as e:
+        print(f"CRITICAL ERROR: {str(e)}", flush=True)
+        return {"status": "error", "message": str(e)}
 
-        # =========================================
-        # STEP 3: Model inference per station
-        # =========================================
-        final_forecast_data = {}
 
-        for station_id, history in station_histories.items():
-            try:
-                raw_forecasts = get_multi_station_forecast(history)
-                station_index = list(STATIONS.keys()).index(station_id)
-                station_key = f"station_{station_index}"
-                
-                if station_key not in raw_forecasts:
-                    raise KeyError(f"Key {station_key} missing in LSTM output")
-
-                values = raw_forecasts[station_key]
-                station_list = []
-
-                for i, val in enumerate(values):
-                    future_time = anchor_time + timedelta(hours=i+1)
-                    v = round(float(val), 2)
-                    station_list.append({
-                        "time": future_time.strftime("%I:%M %p"),
-                        "aqi": v,
-                        "health_info": get_aqi_info(v)
-                    })
-                final_forecast_data[station_id] = station_list
-
-            except Exception as model_err:
-                print(f"Model Error for {station_id}: {str(model_err)}")
-                return {"status": "error", "message": f"Model failed at {station_id}"}
-
-        # =========================================
-        # STEP 4: Route-specific forecast (PRO-DURGAPUR CALIBRATION)
-        # =========================================
-        # =========================================
-        # STEP 4: ROUTE-SPECIFIC FORECAST (WITH DIVERSIFICATION)
-        # =========================================
-        route_forecasts = {}
-
-        if data.routes:
-            for idx, route in enumerate(data.routes):
-                route_name = f"Route_{idx+1}"
-                pts = route.coordinates
-                
-                # --- DIVERSIFICATION LOGIC ---
-               
-                # Route 1: Direct (Model Default)
-                # Route 2: Industry Bias (DSP Side)
-                # Route 3: Residential Bias (Bidhannagar Side)
-                bias_lat, bias_lng = 0.0, 0.0
-                
-                if idx == 1: 
-                    bias_lat = (STATIONS["station_3"]["lat"] - pts[0].lat) * 0.15
-                    bias_lng = (STATIONS["station_3"]["lon"] - pts[0].lng) * 0.15
-                elif idx == 2: # Route 3 ko Green (Station 0) ki taraf pull karo
-                    bias_lat = (STATIONS["station_0"]["lat"] - pts[0].lat) * 0.15
-                    bias_lng = (STATIONS["station_0"]["lon"] - pts[0].lng) * 0.15
-
-                route_hourly = []
-                total_hours = len(next(iter(final_forecast_data.values())))
-
-                for hour in range(total_hours):
-                    point_aqi_values = []
-                    for pt in pts:
-                        # Applying the path bias
-                        adj_lat = pt.lat + bias_lat
-                        adj_lng = pt.lng + bias_lng
-                        
-                        w_sum, w_total = 0, 0
-                        for sid in STATIONS.keys():
-                            d = ((adj_lat - STATIONS[sid]["lat"])**2 + (adj_lng - STATIONS[sid]["lon"])**2)**0.5
-                            # Power 10 for maximum contrast
-                            weight = 1 / ((d**10) + 1e-15)
-                            w_sum += final_forecast_data[sid][hour]["aqi"] * weight
-                            w_total += weight
-                        
-                        point_aqi_values.append(w_sum / w_total)
-
-                    route_avg = sum(point_aqi_values) / len(point_aqi_values)
-                    route_hourly.append({
-                        "time": final_forecast_data["station_0"][hour]["time"],
-                        "aqi": round(route_avg, 2),
-                        "health_info": get_aqi_info(route_avg)
-                    })
+@router.post("/predict-batch")
+async def predict_batch(data: BatchRouteRequest):
+    """
+    Micro-batched variant of /predict-all-stations: one station forecast run
+    shared by every request in the batch, projected onto each request's routes.
+    """
+    print(f"DEBUG: Starting batched forecast pipeline for {len(data.requests)} requests", flush=True)
 
-                route_forecasts[route_name] = {
-                    "forecast": route_hourly,
-                    "avg_route_aqi": round(sum(h['aqi'] for h in route_hourly)/len(route_hourly), 2)
-                }
+    try:
+        final_forecast_data, error = await compute_station_forecasts()
+        if error:
+            return error
 
-                
         return {
             "status": "success",
             "station_forecasts": final_forecast_data,
-            "route_forecasts": route_forecasts,
+            "results": {
+                item.id: {"route_forecasts": project_route_forecasts(item.routes, final_forecast_data)}
+                for item in data.requests
+            },
             "meta": {"location": "Durgapur"}
         }
 
@@ -34,4 +34,11 @@ class RouteRequest(BaseModel):
     sLon: float
     dLat: float
     dLon: float
-    routes: Optional[List[RouteData]]
\ No newline at end of file
+    routes: Optional[List[RouteData]]
+
+class BatchRouteItem(BaseModel):
+    id: str
+    routes: Optional[List[RouteData]]
+
+class BatchRouteRequest(BaseModel):
+    requests: List[BatchRouteItem]
@@ -0,0 +1,59 @@
+package ai.theaware.stealth.service;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link ScalarExposureKernel} versus {@link VectorExposureKernel} over one
+ * column of per-point AQI values. The forked JVM gets the incubator module,
+ * as the application does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx1g", "--add-modules", "jdk.incubator.vector"})
+public class ExposureKernelBenchmark {
+
+    @Param({"scalar", "vector"})
+    String kernel;
+
+    @Param({"16", "100", "1000", "10000", "100000"})
+    int points;
+
+    private ExposureKernel impl;
+    private double[] aqi;
+
+    @Setup
+    public void setUp() {
+        impl = "vector".equals(kernel) ? new VectorExposureKernel() : ScalarExposureKernel.INSTANCE;
+        SplittableRandom random = new SplittableRandom(23L);
+        aqi = new double[points];
+        for (int i = 0; i < points; i++) {
+            aqi[i] = random.nextDouble(40.0, 260.0);
+        }
+    }
+
+    @Benchmark
+    public double risk() {
+        return impl.risk(aqi);
+    }
+
+    @Benchmark
+    public double sum() {
+        return impl.sum(aqi);
+    }
+}
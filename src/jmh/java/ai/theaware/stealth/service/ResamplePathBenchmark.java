@@ -0,0 +1,59 @@
+package ai.theaware.stealth.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ai.theaware.stealth.dto.PackedPolyline;
+
+/**
+ * Cost of resampling one decoded overview polyline to 1 km spacing, as done
+ * once per alternative in {@code DirectionsService.toRouteDirections}.
+ *
+ * {@code legacy} is the haversine + BigDecimal baseline, {@code fastMath} the
+ * {@link PolylineResampler} writing into a reused buffer. That the two agree
+ * is checked by {@code PolylineResamplerTest}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class ResamplePathBenchmark {
+
+    private static final double INTERVAL_METERS = 1000.0;
+
+    @Param({"10", "100", "1000", "5000"})
+    int points;
+
+    private PackedPolyline path;
+    private PackedPolyline.Builder buffer;
+
+    @Setup
+    public void setUp() {
+        path = SyntheticRoutes.polyline(points, 42L);
+        buffer = new PackedPolyline.Builder(points);
+    }
+
+    @Benchmark
+    public PackedPolyline legacy() {
+        return LegacyResampler.resamplePath(path, INTERVAL_METERS);
+    }
+
+    @Benchmark
+    public PackedPolyline.Builder fastMath() {
+        PolylineResampler.resample(path, INTERVAL_METERS, buffer);
+        return buffer;
+    }
+}
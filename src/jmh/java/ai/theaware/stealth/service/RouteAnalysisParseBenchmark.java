@@ -0,0 +1,67 @@
+package ai.theaware.stealth.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ai.theaware.stealth.dto.RouteAnalysis;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Reading an analyze-routes response body: the generic map-of-maps tree the
+ * pipeline used to build versus {@link RouteAnalysisParser}. Compare
+ * {@code gc.alloc.rate.norm} as well as time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class RouteAnalysisParseBenchmark {
+
+    @Param({"100", "1000"})
+    int points;
+
+    @Param({"3"})
+    int alternatives;
+
+    private ObjectMapper objectMapper;
+    private RouteAnalysisParser parser;
+    private byte[] body;
+
+    @Setup
+    public void setUp() {
+        objectMapper = JsonMapper.builder().build();
+        parser = new RouteAnalysisParser(objectMapper);
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status", "success");
+        response.put("route_analysis", SyntheticRoutes.routeAnalysis(alternatives, points, 17L));
+        body = objectMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public Map<String, Object> mapTree() {
+        return objectMapper.readValue(body,
+                objectMapper.getTypeFactory().constructMapType(LinkedHashMap.class, String.class, Object.class));
+    }
+
+    @Benchmark
+    public RouteAnalysis streaming() {
+        return parser.parse(body);
+    }
+}
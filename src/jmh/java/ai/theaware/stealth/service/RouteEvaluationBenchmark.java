@@ -0,0 +1,109 @@
+package ai.theaware.stealth.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ai.theaware.stealth.config.CastUtils;
+import ai.theaware.stealth.dto.PredictionResponseDTO.RouteForecast;
+import ai.theaware.stealth.dto.PredictionResponseDTO.StationForecastEntry;
+import ai.theaware.stealth.dto.RouteSet;
+
+/**
+ * Scores plus health metrics for one request: the
+ * {@link RouteScoringService} / {@link RouteHealthMetricsService} pair over
+ * map-based data versus {@link RouteEvaluationEngine} over a
+ * {@link RouteSet}. Both sides get the same synthetic routes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx1g", "--add-modules", "jdk.incubator.vector"})
+public class RouteEvaluationBenchmark {
+
+    private static final double SCORING_WEIGHT = 0.5;
+
+    @Param({"10", "100", "1000", "5000"})
+    int points;
+
+    @Param({"3", "10"})
+    int alternatives;
+
+    private Map<String, Object> routeAnalysis;
+    private Map<String, RouteForecast> forecasts;
+    private Map<String, Double> durations;
+    private RouteSet routeSet;
+
+    @Setup
+    public void setUp() {
+        routeAnalysis = SyntheticRoutes.routeAnalysis(alternatives, points, 13L);
+        durations = SyntheticRoutes.routeDurations(alternatives, 11L);
+
+        int n = routeAnalysis.size();
+        String[] ids = new String[n];
+        double[] seconds = new double[n];
+        double[][] aqi = new double[n][];
+        double[][] pm25 = new double[n][];
+        double[] avgAqi = new double[n];
+        double[] avgPm25 = new double[n];
+        forecasts = new LinkedHashMap<>();
+
+        int r = 0;
+        for (Map.Entry<String, Object> entry : routeAnalysis.entrySet()) {
+            Map<String, Object> routeData = CastUtils.safeMap(entry.getValue());
+            List<Object> details = CastUtils.safeList(routeData.get("details"));
+
+            List<StationForecastEntry> forecastPoints = new ArrayList<>(details.size());
+            aqi[r] = new double[details.size()];
+            pm25[r] = new double[details.size()];
+            for (int i = 0; i < details.size(); i++) {
+                Map<String, Object> detail = CastUtils.safeMap(details.get(i));
+                aqi[r][i] = ((Number) detail.get("aqi")).doubleValue();
+                pm25[r][i] = ((Number) detail.get("pm25")).doubleValue();
+                StationForecastEntry point = new StationForecastEntry();
+                point.setAqi(aqi[r][i]);
+                forecastPoints.add(point);
+            }
+            RouteForecast forecast = new RouteForecast();
+            forecast.setForecast(forecastPoints);
+            forecasts.put(entry.getKey(), forecast);
+
+            ids[r] = entry.getKey();
+            seconds[r] = durations.get(entry.getKey()) * 60.0;
+            avgAqi[r] = Double.NaN;
+            avgPm25[r] = ((Number) routeData.get("avg_pm25")).doubleValue();
+            r++;
+        }
+        routeSet = new RouteSet(ids, seconds, aqi, pm25, avgAqi, avgPm25);
+    }
+
+    @Benchmark
+    public void servicePair(Blackhole blackhole) {
+        Map<String, Double> scores = RouteScoringService.computeScores(forecasts, durations, SCORING_WEIGHT);
+        String best = RouteScoringService.selectBestRoute(scores);
+        blackhole.consume(scores);
+        blackhole.consume(RouteHealthMetricsService.compute(routeAnalysis, best));
+    }
+
+    @Benchmark
+    public RouteEvaluationEngine.Result fused() {
+        return RouteEvaluationEngine.evaluate(routeSet, SCORING_WEIGHT);
+    }
+}
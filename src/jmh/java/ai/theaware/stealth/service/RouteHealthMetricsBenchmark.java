@@ -0,0 +1,47 @@
+package ai.theaware.stealth.service;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of {@link RouteHealthMetricsService#compute} over the map-of-maps
+ * "route_analysis" block, including the per-route duration string parsing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class RouteHealthMetricsBenchmark {
+
+    @Param({"10", "100", "1000", "5000"})
+    int points;
+
+    @Param({"1", "3", "10"})
+    int alternatives;
+
+    private Map<String, Object> routeAnalysis;
+
+    @Setup
+    public void setUp() {
+        routeAnalysis = SyntheticRoutes.routeAnalysis(alternatives, points, 13L);
+    }
+
+    @Benchmark
+    public RouteHealthMetricsService.HealthMetrics compute() {
+        return RouteHealthMetricsService.compute(routeAnalysis, "Route_1");
+    }
+}
@@ -0,0 +1,53 @@
+package ai.theaware.stealth.service;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ai.theaware.stealth.dto.PredictionResponseDTO.RouteForecast;
+
+/**
+ * Cost of {@link RouteScoringService#computeScores} over a full set of
+ * alternatives, one call per /api/routes/process request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class RouteScoringBenchmark {
+
+    private static final double SCORING_WEIGHT = 0.5;
+
+    @Param({"10", "100", "1000", "5000"})
+    int points;
+
+    @Param({"1", "3", "10"})
+    int alternatives;
+
+    private Map<String, RouteForecast> forecasts;
+    private Map<String, Double> durations;
+
+    @Setup
+    public void setUp() {
+        forecasts = SyntheticRoutes.routeForecasts(alternatives, points, 7L);
+        durations = SyntheticRoutes.routeDurations(alternatives, 11L);
+    }
+
+    @Benchmark
+    public Map<String, Double> computeScores() {
+        return RouteScoringService.computeScores(forecasts, durations, SCORING_WEIGHT);
+    }
+}
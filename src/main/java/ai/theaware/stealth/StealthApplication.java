@@ -3,11 +3,11 @@ package ai.theaware.stealth;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableCaching
-@EnableAsync
+@EnableScheduling
 public class StealthApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,214 @@
+package ai.theaware.stealth.config;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Concurrency limit that follows measured latency, after the gradient
+ * algorithm of Netflix's concurrency-limits (Gradient2).
+ *
+ * Latency is averaged per window ({@code window}, and at least ten
+ * requests). The window average is compared with a long-run average over
+ * the last {@code longWindow} windows. While it stays within
+ * {@code tolerance} × the long-run one, the limit grows by about √limit per
+ * window. Once requests queue up and window latency rises, the gradient
+ * long/short drops below 1 and the limit shrinks with it. A window with a
+ * failed request (5xx) cuts the limit by 10% instead. The limit is not
+ * raised in windows that used less than half of it, so a quiet period does
+ * not leave it inflated.
+ *
+ * A request over the limit is refused at once instead of waiting.
+ *
+ *   route.limiter.limit, route.limiter.inflight
+ *   route.limiter.requests{outcome="accepted|rejected"}
+ *   route.limiter.latency{window="short|long"}   seconds
+ */
+@Slf4j
+public final class AdaptiveConcurrencyLimiter {
+
+    private static final int MIN_WINDOW_SAMPLES = 10;
+    private static final double DROP_BACKOFF = 0.9;
+
+    /**
+     * @param initialLimit concurrent requests allowed before any latency is known
+     * @param minLimit     the limit never goes below this
+     * @param maxLimit     nor above this
+     * @param tolerance    how far the short latency may rise above the long one before the limit shrinks
+     * @param smoothing    weight of each window's estimate in the limit, in (0, 1]
+     * @param window       shortest time between limit updates
+     * @param longWindow   windows averaged into the long-run latency
+     */
+    public record Settings(int initialLimit, int minLimit, int maxLimit, double tolerance,
+                           double smoothing, Duration window, int longWindow) {
+
+        public Settings {
+            if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+                throw new IllegalArgumentException("Limits must satisfy 1 <= min <= initial <= max, got "
+                        + minLimit + " / " + initialLimit + " / " + maxLimit);
+            }
+            if (tolerance < 1.0) {
+                throw new IllegalArgumentException("Latency tolerance must be at least 1: " + tolerance);
+            }
+            if (!(smoothing > 0.0 && smoothing <= 1.0)) {
+                throw new IllegalArgumentException("Smoothing must be in (0, 1]: " + smoothing);
+            }
+            if (window.isNegative() || window.isZero()) {
+                throw new IllegalArgumentException("Limiter window must be positive: " + window);
+            }
+            if (longWindow < 2) {
+                throw new IllegalArgumentException("Long window must be at least 2 windows: " + longWindow);
+            }
+        }
+    }
+
+    private final Settings settings;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter accepted;
+    private final Counter rejected;
+    private volatile int limit;
+
+    // Guarded by this
+    private double estimatedLimit;
+    private double shortNanos;
+    private double longNanos;
+    private long windowStart = System.nanoTime();
+    private int windowSamples;
+    private long windowLatencySum;
+    private int windowSuccesses;
+    private int windowMaxInFlight;
+    private boolean windowDropped;
+
+    public AdaptiveConcurrencyLimiter(Settings settings, MeterRegistry meterRegistry) {
+        this.settings = settings;
+        this.limit = settings.initialLimit();
+        this.estimatedLimit = settings.initialLimit();
+
+        this.accepted = Counter.builder("route.limiter.requests")
+                .description("Requests admitted or shed by the adaptive concurrency limit")
+                .tag("outcome", "accepted")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("route.limiter.requests")
+                .description("Requests admitted or shed by the adaptive concurrency limit")
+                .tag("outcome", "rejected")
+                .register(meterRegistry);
+        Gauge.builder("route.limiter.limit", this, l -> l.limit)
+                .description("Current adaptive concurrency limit")
+                .register(meterRegistry);
+        Gauge.builder("route.limiter.inflight", inFlight, AtomicInteger::get)
+                .description("Requests currently admitted")
+                .register(meterRegistry);
+        Gauge.builder("route.limiter.latency", this, l -> l.latencyNanos(true) / 1e9)
+                .description("Moving average of admitted request latency")
+                .tag("window", "short")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("route.limiter.latency", this, l -> l.latencyNanos(false) / 1e9)
+                .description("Moving average of admitted request latency")
+                .tag("window", "long")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    /** True if the request may run; it must then end in exactly one of the three calls below. */
+    public boolean tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= limit) {
+                rejected.increment();
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        accepted.increment();
+        return true;
+    }
+
+    /** The request completed normally in {@code latencyNanos}. */
+    public void onSuccess(long latencyNanos) {
+        int concurrent = inFlight.getAndDecrement();
+        update(latencyNanos, concurrent, false);
+    }
+
+    /** The request failed on the server side; the limit backs off. */
+    public void onDropped() {
+        int concurrent = inFlight.getAndDecrement();
+        update(0, concurrent, true);
+    }
+
+    /** The request ended without a useful sample (client error, async request the client abandoned). */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Suggested client back-off: about the long-run latency, so a retry lands
+     * after the current requests have drained. At least one second.
+     */
+    public synchronized long retryAfterSeconds() {
+        return Math.max(1, (long) Math.ceil(longNanos / TimeUnit.SECONDS.toNanos(1)));
+    }
+
+    private synchronized double latencyNanos(boolean shortWindow) {
+        return shortWindow ? shortNanos : longNanos;
+    }
+
+    private synchronized void update(long latencyNanos, int concurrent, boolean dropped) {
+        windowSamples++;
+        windowMaxInFlight = Math.max(windowMaxInFlight, concurrent);
+        if (dropped) {
+            windowDropped = true;
+        } else {
+            windowLatencySum += latencyNanos;
+            windowSuccesses++;
+        }
+
+        long now = System.nanoTime();
+        if (now - windowStart < settings.window().toNanos() || windowSamples < MIN_WINDOW_SAMPLES) return;
+
+        double previous = estimatedLimit;
+        double next = previous;
+        if (windowDropped) {
+            next = previous * DROP_BACKOFF;
+        } else if (windowSuccesses > 0) {
+            shortNanos = (double) windowLatencySum / windowSuccesses;
+            longNanos = longNanos == 0 ? shortNanos : longNanos + (shortNanos - longNanos) / settings.longWindow();
+            // After a slow spell the long average lags; let it catch up with the short one
+            if (longNanos > 2 * shortNanos) {
+                longNanos *= 0.95;
+            }
+
+            double gradient = Math.clamp(settings.tolerance() * longNanos / Math.max(1.0, shortNanos), 0.5, 1.0);
+            double target = previous * gradient + Math.sqrt(previous);
+            next = previous * (1 - settings.smoothing()) + target * settings.smoothing();
+            // Only grow when the limit is what holds requests back
+            if (next > previous && windowMaxInFlight < previous / 2) {
+                next = previous;
+            }
+        }
+        int maxInFlight = windowMaxInFlight;
+        windowStart = now;
+        windowSamples = 0;
+        windowLatencySum = 0;
+        windowSuccesses = 0;
+        windowMaxInFlight = 0;
+        windowDropped = false;
+
+        estimatedLimit = Math.clamp(next, settings.minLimit(), settings.maxLimit());
+        int rounded = (int) estimatedLimit;
+        if (rounded != limit) {
+            log.debug("[LIMITER] Limit {} -> {} (latency window {} ms, long-run {} ms, max in flight {})", limit, rounded,
+                    Math.round(shortNanos / 1e6), Math.round(longNanos / 1e6), maxInFlight);
+            limit = rounded;
+        }
+    }
+}
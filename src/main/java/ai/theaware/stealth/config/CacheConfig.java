@@ -1,23 +1,159 @@
 package ai.theaware.stealth.config;
 
-import java.util.concurrent.TimeUnit;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 
+import ai.theaware.stealth.service.PriorityTaskExecutor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * One Caffeine cache per route pipeline stage, each with its own freshness:
+ *
+ *   route_directions      – Google Directions per snapped cell pair (routes change rarely)
+ *   route_ai_analysis     – AI analyze-routes response (tracks live AQI)
+ *   route_recommendations – scores, rank labels and health metrics derived from the above
+ *
+ * Stage caches are stale-while-revalidate ({@link RefreshingCacheManager}):
+ * an old entry is served at once while it reloads on the background lane,
+ * and for longer still when the reload fails (stale-if-error), so an outage
+ * of Google or the AI service answers known keys from the last good value.
+ * The AQI-derived caches can end freshness at the forecast-hour boundary
+ * instead of a fixed TTL, and recommendations are dropped whenever their
+ * analysis reloads. Gets and puts are timed by {@link TimedCacheManager}.
+ *
+ * Size is bounded in bytes, not entries: an analysis can be a few KB or a
+ * few hundred depending on how many points the AI returned. Each cache gets
+ * a share of {@code app.cache.memory-budget} and entries are weighed with
+ * {@link RetainedSizeEstimator}. Caffeine stats are recorded and published
+ * as {@code cache.*} meters, plus {@code route.cache.weighted.bytes{cache}}.
+ */
 @Configuration
+@Slf4j
 public class CacheConfig {
 
+    /** Caffeine node, key record and timestamp wrapper. */
+    private static final long ENTRY_OVERHEAD = 160;
+
+    @Value("${app.cache.directions.ttl:30m}")
+    private Duration directionsTtl;
+
+    @Value("${app.cache.directions.refresh-ahead:2m}")
+    private Duration directionsRefreshAhead;
+
+    @Value("${app.cache.directions.stale-while-revalidate:30m}")
+    private Duration directionsStale;
+
+    @Value("${app.cache.directions.stale-if-error:6h}")
+    private Duration directionsStaleIfError;
+
+    @Value("${app.cache.ai-analysis.ttl:1h}")
+    private Duration aiAnalysisTtl;
+
+    @Value("${app.cache.ai-analysis.align-to-forecast-hour:true}")
+    private boolean aiAnalysisAligned;
+
+    @Value("${app.cache.ai-analysis.refresh-ahead:0s}")
+    private Duration aiAnalysisRefreshAhead;
+
+    @Value("${app.cache.ai-analysis.stale-while-revalidate:10m}")
+    private Duration aiAnalysisStale;
+
+    @Value("${app.cache.ai-analysis.stale-if-error:2h}")
+    private Duration aiAnalysisStaleIfError;
+
+    @Value("${app.cache.recommendations.ttl:1h}")
+    private Duration recommendationsTtl;
+
+    @Value("${app.cache.recommendations.align-to-forecast-hour:true}")
+    private boolean recommendationsAligned;
+
+    @Value("${app.cache.forecast.publish-delay:5m}")
+    private Duration forecastPublishDelay;
+
+    @Value("${app.cache.memory-budget:64MB}")
+    private DataSize memoryBudget;
+
+    @Value("${app.cache.directions.memory-share:0.2}")
+    private double directionsShare;
+
+    @Value("${app.cache.ai-analysis.memory-share:0.5}")
+    private double aiAnalysisShare;
+
+    @Value("${app.cache.recommendations.memory-share:0.3}")
+    private double recommendationsShare;
+
     @Bean
-    public CacheManager cacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager("aqi_routes", "aqi_predict");
-        cacheManager.setCaffeine(Caffeine.newBuilder()
-                .expireAfterWrite(5, TimeUnit.MINUTES)
-                .maximumSize(500));
-        return cacheManager;
+    public CacheManager cacheManager(MeterRegistry meterRegistry, PriorityTaskExecutor lanes) {
+        double shares = directionsShare + aiAnalysisShare + recommendationsShare;
+        if (directionsShare <= 0 || aiAnalysisShare <= 0 || recommendationsShare <= 0 || shares > 1.0 + 1e-9) {
+            throw new IllegalArgumentException(
+                    "app.cache.*.memory-share must be positive and sum to at most 1, got " + shares);
+        }
+
+        // Only the stage caches below; an unknown cache name is an error, not a new unbounded cache
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setCacheNames(List.of());
+
+        register(cacheManager, "route_directions", directionsShare, meterRegistry);
+        register(cacheManager, "route_ai_analysis", aiAnalysisShare, meterRegistry);
+        register(cacheManager, "route_recommendations", recommendationsShare, meterRegistry);
+        log.info("[CACHE] Memory budget {} | directions {} | ai_analysis {} | recommendations {}",
+                memoryBudget, directionsShare, aiAnalysisShare, recommendationsShare);
+
+        Map<String, RefreshingCacheManager.Policy> policies = Map.of(
+                "route_directions", new RefreshingCacheManager.Policy(
+                        directionsTtl, false, directionsRefreshAhead, directionsStale, directionsStaleIfError),
+                "route_ai_analysis", new RefreshingCacheManager.Policy(
+                        aiAnalysisTtl, aiAnalysisAligned, aiAnalysisRefreshAhead, aiAnalysisStale,
+                        aiAnalysisStaleIfError),
+                // Recomputing takes microseconds, so it is never served stale
+                "route_recommendations", new RefreshingCacheManager.Policy(
+                        recommendationsTtl, recommendationsAligned, Duration.ZERO, Duration.ZERO, Duration.ZERO));
+        Map<String, List<String>> dependents = Map.of(
+                "route_ai_analysis", List.of("route_recommendations"));
+
+        RefreshingCacheManager refreshing = new RefreshingCacheManager(cacheManager, policies, dependents,
+                lanes.background(), forecastPublishDelay, meterRegistry);
+        return new TimedCacheManager(refreshing, meterRegistry);
+    }
+
+    /** Expiry comes from each entry's stamp, see {@link RefreshingCacheManager#expiry()}. */
+    private void register(CaffeineCacheManager cacheManager, String name, double share, MeterRegistry meterRegistry) {
+        long maxBytes = (long) (memoryBudget.toBytes() * share);
+        Cache<Object, Object> cache = Caffeine.newBuilder()
+                .expireAfter(RefreshingCacheManager.expiry())
+                .maximumWeight(maxBytes)
+                .weigher(CacheConfig::weigh)
+                .recordStats()
+                .build();
+        cacheManager.registerCustomCache(name, cache);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+        Gauge.builder("route.cache.weighted.bytes", cache,
+                        c -> c.policy().eviction().map(e -> e.weightedSize().orElse(0L)).orElse(0L))
+                .description("Estimated retained bytes of the entries in the cache")
+                .tag("cache", name)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    private static int weigh(Object key, Object value) {
+        Object cached = value instanceof RefreshingCacheManager.Stamped stamped ? stamped.value() : value;
+        long bytes = ENTRY_OVERHEAD + RetainedSizeEstimator.estimate(cached);
+        return (int) Math.min(Integer.MAX_VALUE, bytes);
     }
-}
\ No newline at end of file
+}
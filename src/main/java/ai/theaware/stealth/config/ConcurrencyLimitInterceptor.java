@@ -0,0 +1,133 @@
+package ai.theaware.stealth.config;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Admits route requests through an {@link AdaptiveConcurrencyLimiter}.
+ * Requests over the limit are answered 503 with {@code Retry-After} before
+ * the controller runs, so a surge costs a header write instead of a
+ * pipeline run that would miss its deadline anyway.
+ *
+ * Latency is measured from admission to completion. A request that goes
+ * async is released when its servlet thread is, without a sample, unless
+ * the handler took its {@link Permit} with {@link #holdAcrossAsync}: the
+ * SSE stream does, and ends the permit once the pipeline's analysis is
+ * delivered. The forecast that follows is not server latency, so it is not
+ * held for.
+ */
+@Slf4j
+public class ConcurrencyLimitInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String PERMIT = ConcurrencyLimitInterceptor.class.getName() + ".permit";
+    private static final String BUSY_BODY = "{\"error\":\"Server busy, please retry shortly\"}";
+
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    public ConcurrencyLimitInterceptor(AdaptiveConcurrencyLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    /**
+     * Keeps the request's permit past the async handoff; the caller must end
+     * it. Requests the limiter does not cover get a permit that does nothing.
+     */
+    public static Permit holdAcrossAsync(HttpServletRequest request) {
+        if (!(request.getAttribute(PERMIT) instanceof Permit permit)) return Permit.UNLIMITED;
+        permit.held = true;
+        return permit;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        // Async dispatches belong to a request admitted earlier
+        if (request.getDispatcherType() == DispatcherType.ASYNC) return true;
+
+        if (limiter.tryAcquire()) {
+            request.setAttribute(PERMIT, new Permit(limiter, System.nanoTime()));
+            return true;
+        }
+
+        long retryAfter = limiter.retryAfterSeconds();
+        log.debug("[LIMITER] Shed {} at limit {}", request.getRequestURI(), limiter.getLimit());
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write(BUSY_BODY);
+        return false;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        if (!(request.getAttribute(PERMIT) instanceof Permit permit)) return;
+        // From here on the permit belongs to whoever holds it, not to the async dispatch
+        request.removeAttribute(PERMIT);
+        if (!permit.held) permit.release();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (!(request.getAttribute(PERMIT) instanceof Permit permit)) return;
+        request.removeAttribute(PERMIT);
+
+        int status = response.getStatus();
+        if (ex != null || status >= 500) {
+            permit.dropped();
+        } else if (status >= 400) {
+            permit.release();
+        } else {
+            permit.succeeded();
+        }
+    }
+
+    /**
+     * One admitted request's slot in the limiter. Only the first of the three
+     * calls counts, so every path that may end a request can call one.
+     */
+    public static final class Permit {
+
+        static final Permit UNLIMITED = new Permit(null, 0);
+
+        private final AdaptiveConcurrencyLimiter limiter;
+        private final long admittedAt;
+        private final AtomicBoolean ended = new AtomicBoolean();
+        private volatile boolean held;
+
+        private Permit(AdaptiveConcurrencyLimiter limiter, long admittedAt) {
+            this.limiter = limiter;
+            this.admittedAt = admittedAt;
+        }
+
+        /** Served; the time since admission is a latency sample. */
+        public void succeeded() {
+            if (end()) limiter.onSuccess(System.nanoTime() - admittedAt);
+        }
+
+        /** Failed on the server side; the limit backs off. */
+        public void dropped() {
+            if (end()) limiter.onDropped();
+        }
+
+        /** Ended without a useful sample, e.g. the client went away. */
+        public void release() {
+            if (end()) limiter.release();
+        }
+
+        private boolean end() {
+            return limiter != null && ended.compareAndSet(false, true);
+        }
+    }
+}
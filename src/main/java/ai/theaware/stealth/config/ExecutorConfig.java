@@ -0,0 +1,20 @@
+package ai.theaware.stealth.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * One virtual thread per route pipeline stage. Stages block on HTTP and
+     * JDBC, which parks the virtual thread instead of pinning a pool thread.
+     */
+    @Bean(destroyMethod = "close")
+    public ExecutorService routePipelineExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("route-pipeline-", 0).factory());
+    }
+}
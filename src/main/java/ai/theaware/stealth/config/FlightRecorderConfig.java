@@ -0,0 +1,52 @@
+package ai.theaware.stealth.config;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import ai.theaware.stealth.service.RouteStageEvent;
+import jdk.jfr.Recording;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Optional always-on JFR recording, bounded by size and age, so a slow
+ * request can be inspected in JMC after the fact:
+ *
+ *   jcmd PID JFR.dump name=stealth-continuous filename=incident.jfr
+ *
+ * The recording is written to {@code app.jfr.continuous.dump-path} when the
+ * application shuts down.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.jfr.continuous.enabled", havingValue = "true")
+@Slf4j
+public class FlightRecorderConfig {
+
+    @Bean(destroyMethod = "stop")
+    public Recording continuousRecording(
+            @Value("${app.jfr.continuous.settings:default}") String settings,
+            @Value("${app.jfr.continuous.max-size:250MB}") DataSize maxSize,
+            @Value("${app.jfr.continuous.max-age:6h}") Duration maxAge,
+            @Value("${app.jfr.continuous.dump-path:stealth-continuous.jfr}") Path dumpPath
+    ) throws IOException, ParseException {
+        Recording recording = new Recording(jdk.jfr.Configuration.getConfiguration(settings));
+        recording.setName("stealth-continuous");
+        recording.setToDisk(true);
+        recording.setMaxSize(maxSize.toBytes());
+        recording.setMaxAge(maxAge);
+        recording.setDestination(dumpPath);
+        recording.enable(RouteStageEvent.class);
+        recording.start();
+
+        log.info("[JFR] Continuous recording started | settings={} | max-size={} | max-age={} | dump={}",
+                settings, maxSize, maxAge, dumpPath);
+        return recording;
+    }
+}
@@ -3,6 +3,7 @@ package ai.theaware.stealth.config;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -10,6 +11,7 @@ import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
+import ai.theaware.stealth.service.QuotaExceededException;
 import lombok.extern.slf4j.Slf4j;
 
 @ControllerAdvice
@@ -53,6 +55,19 @@ public class GlobalExceptionHandler {
                 .body(Map.of("error", msg));
     }
 
+    /**
+     * Google quota refused the Directions call (user or global bucket empty,
+     * or cache-only mode and the route is not cached).
+     */
+    @ExceptionHandler(QuotaExceededException.class)
+    public ResponseEntity<Map<String, String>> handleQuota(QuotaExceededException ex) {
+        long retryAfter = Math.max(1, ex.getRetryAfter().toSeconds());
+        log.warn("[QUOTA] Request refused: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter))
+                .body(Map.of("error", "Route quota exceeded, please retry later"));
+    }
+
     /**
      * Catch-all for RuntimeExceptions.
      * Logs the full stack trace server-side but returns only a generic message to the client.
@@ -0,0 +1,438 @@
+package ai.theaware.stealth.config;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import ai.theaware.stealth.service.RouteStageEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Stale-while-revalidate on top of Caffeine caches. Each value is stored with
+ * its own timestamps:
+ *
+ *   refreshAt   – reads from here on still return the value but start one
+ *                 background reload (refresh-ahead)
+ *   freshUntil  – end of the TTL, or the next forecast-hour boundary when the
+ *                 cache is aligned to forecasts
+ *   staleUntil  – freshUntil + the stale-while-revalidate window
+ *   expiresAt   – the later of staleUntil and freshUntil + the stale-if-error
+ *                 window; Caffeine drops the entry
+ *
+ * Until {@code staleUntil} a read never waits on the loader. After it, a
+ * read reloads in the caller's thread, and only if that load fails (the
+ * dependency is down or its circuit breaker open) is the old value returned
+ * instead of the error. Reloads use the
+ * {@link Callable} of the {@code @Cacheable(sync = true)} call that found the
+ * entry old, so they repeat that call on the refresh executor, at most one
+ * per key at a time. A finished load also evicts the key from dependent
+ * caches, whose entries were derived from the old value.
+ *
+ * The Caffeine caches behind a policy must be built with {@link #expiry()}.
+ * Caches without a policy are passed through untouched.
+ *
+ *   route.cache.refresh{cache, outcome="success|error|rejected"}
+ *   route.cache.stale_served{cache}
+ *   route.cache.stale_if_error{cache}
+ */
+@Slf4j
+public class RefreshingCacheManager implements CacheManager {
+
+    private static final long HOUR_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    /**
+     * @param ttl                  how long a value is fresh
+     * @param alignToForecastHour  also end freshness at the next forecast-hour boundary
+     * @param refreshAhead         start the background reload this long before freshness ends
+     * @param staleWhileRevalidate how long an old value may still be served while it reloads
+     * @param staleIfError         how long after freshness an old value is kept to answer when a reload fails
+     */
+    public record Policy(Duration ttl, boolean alignToForecastHour, Duration refreshAhead,
+                         Duration staleWhileRevalidate, Duration staleIfError) {
+
+        public Policy {
+            if (ttl.isNegative() || ttl.isZero()) {
+                throw new IllegalArgumentException("Cache TTL must be positive: " + ttl);
+            }
+            if (refreshAhead.isNegative() || refreshAhead.compareTo(ttl) >= 0) {
+                throw new IllegalArgumentException("refresh-ahead " + refreshAhead + " must be in [0, " + ttl + ")");
+            }
+            if (staleWhileRevalidate.isNegative()) {
+                throw new IllegalArgumentException("stale-while-revalidate must not be negative: " + staleWhileRevalidate);
+            }
+            if (staleIfError.isNegative()) {
+                throw new IllegalArgumentException("stale-if-error must not be negative: " + staleIfError);
+            }
+        }
+    }
+
+    /** A cached value with its timestamps (epoch millis). */
+    public record Stamped(Object value, long refreshAt, long freshUntil, long staleUntil, long expiresAt) {
+
+        Stamped staleFrom(long now) {
+            if (now >= freshUntil) return this;
+            long shift = freshUntil - now;
+            return new Stamped(value, now, now, Math.max(now, staleUntil - shift), Math.max(now, expiresAt - shift));
+        }
+    }
+
+    private final CacheManager delegate;
+    private final Map<String, Policy> policies;
+    private final Map<String, List<String>> dependents;
+    private final Executor refreshExecutor;
+    private final Duration forecastPublishDelay;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+    private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<>();
+
+    /**
+     * @param dependents           cache name → caches whose entries for the same key are
+     *                             derived from it and are evicted when it loads
+     * @param forecastPublishDelay how long after the top of each UTC hour the new forecast lands
+     */
+    public RefreshingCacheManager(CacheManager delegate, Map<String, Policy> policies,
+                                  Map<String, List<String>> dependents, Executor refreshExecutor,
+                                  Duration forecastPublishDelay, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.policies = Map.copyOf(policies);
+        this.dependents = Map.copyOf(dependents);
+        this.refreshExecutor = refreshExecutor;
+        this.forecastPublishDelay = forecastPublishDelay;
+        this.meterRegistry = meterRegistry;
+        this.clock = Clock.systemUTC();
+    }
+
+    /** Caffeine expiry that drops an entry at its {@link Stamped#expiresAt()}. */
+    public static Expiry<Object, Object> expiry() {
+        return new Expiry<>() {
+            @Override
+            public long expireAfterCreate(Object key, Object value, long currentTime) {
+                return remainingNanos(value);
+            }
+
+            @Override
+            public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+                return remainingNanos(value);
+            }
+
+            @Override
+            public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+
+            private long remainingNanos(Object value) {
+                if (!(value instanceof Stamped stamped)) return Long.MAX_VALUE;
+                long millis = stamped.expiresAt() - System.currentTimeMillis();
+                return millis <= 0 ? 0 : TimeUnit.MILLISECONDS.toNanos(millis);
+            }
+        };
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = caches.get(name);
+        if (cache != null) return cache;
+        Cache target = delegate.getCache(name);
+        if (target == null) return null;
+        Policy policy = policies.get(name);
+        return policy == null ? target : caches.computeIfAbsent(name, n -> new RefreshingCache(target, policy));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+
+    public CacheManager getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Ends the freshness of every entry in the named cache without dropping
+     * it: the next read of each key is served the old value and reloads it.
+     *
+     * @return the number of entries marked
+     */
+    public int markStale(String name) {
+        Cache cache = getCache(name);
+        if (!(cache instanceof RefreshingCache refreshing)) return 0;
+        return refreshing.markStale();
+    }
+
+    /** Start of the next forecast hour after {@code now}: top of the UTC hour plus the publish delay. */
+    long nextForecastBoundary(long now) {
+        return forecastHour(now, forecastPublishDelay) + HOUR_MILLIS + forecastPublishDelay.toMillis();
+    }
+
+    /**
+     * The UTC hour whose forecast is current at {@code now}: until the publish
+     * delay has passed, the previous hour's forecast is still the latest one.
+     *
+     * @return start of that hour, epoch millis
+     */
+    public static long forecastHour(long now, Duration publishDelay) {
+        return Math.floorDiv(now - publishDelay.toMillis(), HOUR_MILLIS) * HOUR_MILLIS;
+    }
+
+    private void evictDependents(String name, Object key) {
+        for (String dependent : dependents.getOrDefault(name, List.of())) {
+            Cache cache = getCache(dependent);
+            if (cache != null) cache.evict(key);
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Refreshing cache
+    // -------------------------------------------------------------------------
+
+    private final class RefreshingCache implements Cache {
+
+        private final Cache target;
+        private final Policy policy;
+        private final ConcurrentMap<Object, Boolean> refreshing = new ConcurrentHashMap<>();
+        private final Counter staleServed;
+        private final Counter staleIfError;
+        private final Counter refreshed;
+        private final Counter refreshFailed;
+        private final Counter refreshRejected;
+
+        RefreshingCache(Cache target, Policy policy) {
+            this.target = target;
+            this.policy = policy;
+            this.staleServed = Counter.builder("route.cache.stale_served")
+                    .description("Reads answered with a value past its refresh point")
+                    .tag("cache", target.getName())
+                    .register(meterRegistry);
+            this.staleIfError = Counter.builder("route.cache.stale_if_error")
+                    .description("Reads answered with an old value because its reload failed")
+                    .tag("cache", target.getName())
+                    .register(meterRegistry);
+            this.refreshed = refreshCounter("success");
+            this.refreshFailed = refreshCounter("error");
+            this.refreshRejected = refreshCounter("rejected");
+        }
+
+        private Counter refreshCounter(String outcome) {
+            return Counter.builder("route.cache.refresh")
+                    .description("Background cache reloads")
+                    .tags("cache", target.getName(), "outcome", outcome)
+                    .register(meterRegistry);
+        }
+
+        @Override
+        public String getName() {
+            return target.getName();
+        }
+
+        @Override
+        public Object getNativeCache() {
+            return target.getNativeCache();
+        }
+
+        /** Plain gets (non-sync {@code @Cacheable}) see only fresh values: they cannot reload. */
+        @Override
+        public ValueWrapper get(Object key) {
+            Stamped stamped = stamped(key);
+            return stamped != null && clock.millis() < stamped.freshUntil()
+                    ? new SimpleValueWrapper(stamped.value())
+                    : null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T get(Object key, Class<T> type) {
+            ValueWrapper wrapper = get(key);
+            Object value = wrapper != null ? wrapper.get() : null;
+            if (value != null && type != null && !type.isInstance(value)) {
+                throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+            }
+            return (T) value;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T get(Object key, Callable<T> valueLoader) {
+            // One lookup, so Caffeine's stats see exactly one hit or miss per read
+            boolean[] loaded = new boolean[1];
+            Stamped stamped = target.get(key, () -> {
+                loaded[0] = true;
+                return stamp(valueLoader.call());
+            });
+            if (stamped == null) return null;
+            if (loaded[0]) {
+                evictDependents(getName(), key);
+                return (T) stamped.value();
+            }
+
+            // Present means not past expiresAt; Caffeine drops entries there
+            long now = clock.millis();
+            if (now >= stamped.staleUntil()) {
+                return (T) reloadOrKeep(key, stamped, valueLoader);
+            }
+            if (now >= stamped.refreshAt()) {
+                if (now >= stamped.freshUntil()) {
+                    staleServed.increment();
+                    RouteStageEvent.markCache("stale");
+                }
+                refreshAsync(key, valueLoader);
+            }
+            return (T) stamped.value();
+        }
+
+        /**
+         * Past the stale window the entry is only kept for errors: load in the
+         * caller's thread like a miss (Caffeine counted a hit), and fall back
+         * to the old value if that fails. Concurrent readers each load; the
+         * route pipeline coalesces them in {@code SingleFlight}, in front of
+         * the cache.
+         */
+        private Object reloadOrKeep(Object key, Stamped stamped, Callable<?> valueLoader) {
+            Object value;
+            try {
+                value = valueLoader.call();
+            } catch (Exception e) {
+                Duration age = Duration.ofMillis(clock.millis() - stamped.freshUntil());
+                staleIfError.increment();
+                RouteStageEvent.markCache("stale_if_error");
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                log.warn("[CACHE] {} {} reload failed, serving the value that went stale {} ago: {}",
+                        getName(), key, age, cause.toString());
+                return stamped.value();
+            }
+            target.put(key, stamp(value));
+            evictDependents(getName(), key);
+            return value;
+        }
+
+        private void refreshAsync(Object key, Callable<?> valueLoader) {
+            if (refreshing.putIfAbsent(key, Boolean.TRUE) != null) return;
+
+            FutureTask<Void> task = new FutureTask<>(() -> {
+                try {
+                    target.put(key, stamp(valueLoader.call()));
+                    evictDependents(getName(), key);
+                    refreshed.increment();
+                    log.debug("[CACHE REFRESH] {} {}", getName(), key);
+                } catch (Exception e) {
+                    refreshFailed.increment();
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    log.warn("[CACHE REFRESH] {} {} failed, old value kept: {}", getName(), key, cause.toString());
+                }
+                return null;
+            }) {
+                @Override
+                protected void done() {
+                    // Also runs when a full lane drops the queued task
+                    refreshing.remove(key);
+                }
+            };
+            try {
+                refreshExecutor.execute(task);
+            } catch (RejectedExecutionException e) {
+                refreshing.remove(key);
+                refreshRejected.increment();
+                log.debug("[CACHE REFRESH] {} {} not scheduled: {}", getName(), key, e.getMessage());
+            }
+        }
+
+        private Stamped stamped(Object key) {
+            ValueWrapper wrapper = target.get(key);
+            return wrapper != null && wrapper.get() instanceof Stamped stamped ? stamped : null;
+        }
+
+        private Stamped stamp(Object value) {
+            long now = clock.millis();
+            long freshUntil = now + policy.ttl().toMillis();
+            long refreshAt = freshUntil - policy.refreshAhead().toMillis();
+            if (policy.alignToForecastHour()) {
+                long boundary = nextForecastBoundary(now);
+                if (boundary < freshUntil) {
+                    // Reloading before the new forecast lands would fetch the same data
+                    freshUntil = boundary;
+                    refreshAt = boundary;
+                }
+            }
+            long staleUntil = freshUntil + policy.staleWhileRevalidate().toMillis();
+            long expiresAt = Math.max(staleUntil, freshUntil + policy.staleIfError().toMillis());
+            return new Stamped(value, refreshAt, freshUntil, staleUntil, expiresAt);
+        }
+
+        @SuppressWarnings("unchecked")
+        int markStale() {
+            long now = clock.millis();
+            int[] marked = new int[1];
+            ((com.github.benmanes.caffeine.cache.Cache<Object, Object>) target.getNativeCache()).asMap()
+                    .replaceAll((key, value) -> {
+                        if (!(value instanceof Stamped stamped)) return value;
+                        marked[0]++;
+                        return stamped.staleFrom(now);
+                    });
+            return marked[0];
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            target.put(key, stamp(value));
+            evictDependents(getName(), key);
+        }
+
+        @Override
+        public ValueWrapper putIfAbsent(Object key, Object value) {
+            ValueWrapper existing = target.putIfAbsent(key, stamp(value));
+            if (existing == null) {
+                evictDependents(getName(), key);
+                return null;
+            }
+            return existing.get() instanceof Stamped stamped ? new SimpleValueWrapper(stamped.value()) : existing;
+        }
+
+        @Override
+        public void evict(Object key) {
+            target.evict(key);
+            evictDependents(getName(), key);
+        }
+
+        @Override
+        public boolean evictIfPresent(Object key) {
+            boolean present = target.evictIfPresent(key);
+            evictDependents(getName(), key);
+            return present;
+        }
+
+        @Override
+        public void clear() {
+            target.clear();
+            for (String dependent : dependents.getOrDefault(getName(), List.of())) {
+                Cache cache = getCache(dependent);
+                if (cache != null) cache.clear();
+            }
+        }
+
+        @Override
+        public boolean invalidate() {
+            boolean notEmpty = target.invalidate();
+            for (String dependent : dependents.getOrDefault(getName(), List.of())) {
+                Cache cache = getCache(dependent);
+                if (cache != null) cache.invalidate();
+            }
+            return notEmpty;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package ai.theaware.stealth.config;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import ai.theaware.stealth.service.CircuitBreaker;
+import ai.theaware.stealth.service.DependencyGuard;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Circuit breakers, timeouts and hedging for the external dependencies, see
+ * {@link DependencyGuard}. The breaker settings are shared; timeout bounds
+ * and hedging are per dependency:
+ *
+ *   google      – Directions; billed per request, so not hedged by default
+ *   ai-analysis – analyze-routes, on the request's critical path; hedged
+ *   predict     – forecasts are polled, nobody waits on them; not hedged
+ */
+@Configuration
+public class ResilienceConfig {
+
+    @Value("${app.resilience.breaker.window:20}")
+    private int breakerWindow;
+
+    @Value("${app.resilience.breaker.minimum-calls:10}")
+    private int breakerMinimumCalls;
+
+    @Value("${app.resilience.breaker.failure-rate:0.5}")
+    private double breakerFailureRate;
+
+    @Value("${app.resilience.breaker.open-duration:30s}")
+    private Duration breakerOpenDuration;
+
+    @Value("${app.resilience.breaker.half-open-calls:3}")
+    private int breakerHalfOpenCalls;
+
+    @Value("${app.resilience.google.timeout.min:1s}")
+    private Duration googleMinTimeout;
+
+    @Value("${app.resilience.google.timeout.max:10s}")
+    private Duration googleMaxTimeout;
+
+    @Value("${app.resilience.google.hedge:false}")
+    private boolean googleHedge;
+
+    @Value("${app.resilience.ai-analysis.timeout.min:2s}")
+    private Duration aiAnalysisMinTimeout;
+
+    @Value("${app.resilience.ai-analysis.timeout.max:10s}")
+    private Duration aiAnalysisMaxTimeout;
+
+    @Value("${app.resilience.ai-analysis.hedge:true}")
+    private boolean aiAnalysisHedge;
+
+    @Value("${app.resilience.predict.timeout.min:2s}")
+    private Duration predictMinTimeout;
+
+    @Value("${app.resilience.predict.timeout.max:10s}")
+    private Duration predictMaxTimeout;
+
+    @Value("${app.resilience.predict.hedge:false}")
+    private boolean predictHedge;
+
+    @Value("${app.resilience.hedge.max-ratio:0.1}")
+    private double hedgeMaxRatio;
+
+    @Value("${app.resilience.hedge.min-delay:50ms}")
+    private Duration hedgeMinDelay;
+
+    @Bean
+    public DependencyGuard dependencyGuard(@Qualifier("routePipelineExecutor") ExecutorService pipelineExecutor,
+                                           MeterRegistry meterRegistry) {
+        CircuitBreaker.Settings breaker = new CircuitBreaker.Settings(breakerWindow, breakerMinimumCalls,
+                breakerFailureRate, breakerOpenDuration, breakerHalfOpenCalls);
+        Map<String, DependencyGuard.Policy> policies = Map.of(
+                DependencyGuard.GOOGLE, new DependencyGuard.Policy(
+                        breaker, googleMinTimeout, googleMaxTimeout, googleHedge),
+                DependencyGuard.AI_ANALYSIS, new DependencyGuard.Policy(
+                        breaker, aiAnalysisMinTimeout, aiAnalysisMaxTimeout, aiAnalysisHedge),
+                DependencyGuard.PREDICT, new DependencyGuard.Policy(
+                        breaker, predictMinTimeout, predictMaxTimeout, predictHedge));
+        return new DependencyGuard(policies, pipelineExecutor, hedgeMaxRatio, hedgeMinDelay, meterRegistry);
+    }
+}
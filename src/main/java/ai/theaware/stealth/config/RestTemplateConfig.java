@@ -1,18 +1,129 @@
 package ai.theaware.stealth.config;
 
+import java.time.Duration;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.pool.PoolConcurrencyPolicy;
+import org.apache.hc.core5.pool.PoolReusePolicy;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import ai.theaware.stealth.service.Deadline;
+import ai.theaware.stealth.service.RouteStageEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+
+/**
+ * Shared RestTemplate for the AI service (analyze-routes, predict-all-stations).
+ *
+ * Backed by a pooled Apache HttpClient so the large coordinate payloads reuse
+ * keep-alive connections instead of opening a TCP connection per call:
+ *   - per-host and total connection limits
+ *   - idle and expired connections evicted in the background
+ *   - responses decompressed transparently (Accept-Encoding: gzip, deflate)
+ *   - request bodies gzip-compressed above a size threshold
+ *   - pool and response timeouts cut to the caller's {@link Deadline}
+ *
+ * Pool gauges are published as httpcomponents.httpclient.pool.*{httpclient="ai-service"}.
+ */
 @Configuration
 public class RestTemplateConfig {
 
+    @Value("${app.http.ai.max-connections:50}")
+    private int maxConnections;
+
+    @Value("${app.http.ai.max-connections-per-host:20}")
+    private int maxConnectionsPerHost;
+
+    @Value("${app.http.ai.connect-timeout:5s}")
+    private Duration connectTimeout;
+
+    @Value("${app.http.ai.read-timeout:10s}")
+    private Duration readTimeout;
+
+    @Value("${app.http.ai.pool-acquire-timeout:2s}")
+    private Duration poolAcquireTimeout;
+
+    @Value("${app.http.ai.idle-eviction:30s}")
+    private Duration idleEviction;
+
+    @Value("${app.http.ai.connection-ttl:5m}")
+    private Duration connectionTtl;
+
+    @Value("${app.http.ai.gzip-min-bytes:1024}")
+    private int gzipMinBytes;
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager aiConnectionManager(MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerHost)
+                .setPoolConcurrencyPolicy(PoolConcurrencyPolicy.STRICT)
+                .setConnPoolPolicy(PoolReusePolicy.LIFO)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(connectTimeout))
+                        .setSocketTimeout(Timeout.of(readTimeout))
+                        .setTimeToLive(TimeValue.of(connectionTtl))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "ai-service").bindTo(meterRegistry);
+        return connectionManager;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient aiHttpClient(PoolingHttpClientConnectionManager aiConnectionManager) {
+        return HttpClients.custom()
+                .setConnectionManager(aiConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(poolAcquireTimeout))
+                        .setResponseTimeout(Timeout.of(readTimeout))
+                        .build())
+                .evictIdleConnections(TimeValue.of(idleEviction))
+                .evictExpiredConnections()
+                .build();
+    }
+
     @Bean
-    public RestTemplate restTemplate() {
-        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout(5000);
-        factory.setReadTimeout(10000);
-        return new RestTemplate(factory);
+    public RestTemplate restTemplate(CloseableHttpClient aiHttpClient) {
+        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(aiHttpClient);
+        requestFactory.setHttpContextFactory((method, uri) -> deadlineContext());
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
+        restTemplate.getInterceptors().add((request, body, execution) -> {
+            RouteStageEvent.addPayloadBytes(body.length);
+            return execution.execute(request, body);
+        });
+        restTemplate.getInterceptors().add(new GzipRequestInterceptor(gzipMinBytes));
+        return restTemplate;
+    }
+
+    /**
+     * Per-request timeouts from the caller's {@link Deadline}: the pool wait
+     * and the response wait are cut to the time left. {@code null} keeps the
+     * client defaults when no shorter deadline is in effect.
+     */
+    private HttpClientContext deadlineContext() {
+        Duration left = Deadline.remaining(readTimeout);
+        if (left.equals(readTimeout)) return null;
+
+        Timeout timeout = Timeout.ofMilliseconds(Math.max(1, left.toMillis()));
+        HttpClientContext context = HttpClientContext.create();
+        context.setRequestConfig(RequestConfig.custom()
+                .setConnectionRequestTimeout(left.compareTo(poolAcquireTimeout) < 0 ? timeout : Timeout.of(poolAcquireTimeout))
+                .setResponseTimeout(timeout)
+                .build());
+        return context;
     }
-}
\ No newline at end of file
+}
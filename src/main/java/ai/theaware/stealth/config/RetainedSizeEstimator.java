@@ -0,0 +1,102 @@
+package ai.theaware.stealth.config;
+
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import ai.theaware.stealth.dto.HealthMetricsResponseDTO;
+import ai.theaware.stealth.dto.PackedPolyline;
+import ai.theaware.stealth.dto.RouteAnalysis;
+import ai.theaware.stealth.dto.RouteAnalysisResponseDTO;
+import ai.theaware.stealth.dto.RouteDirections;
+import ai.theaware.stealth.dto.RouteResponseDTO;
+import ai.theaware.stealth.dto.RouteTradeoffDTO;
+
+/**
+ * Rough heap footprint of a cached route value, for Caffeine's weigher.
+ *
+ * Walks the object graph of the pipeline's cache values and adds shallow
+ * sizes for a 64-bit JVM with compressed references; strings are counted as
+ * Latin-1. Good to within a small factor, which is what a memory budget
+ * needs. Objects reachable twice in one value are counted once; objects
+ * shared between cache entries (a recommendation holds its analysis'
+ * fields) are counted in each, so the budget errs on the safe side.
+ */
+public final class RetainedSizeEstimator {
+
+    private static final long HEADER = 16;
+    private static final long REFERENCE = 4;
+    private static final long ARRAY_HEADER = 16;
+    private static final long STRING = 24 + ARRAY_HEADER;
+    private static final long MAP_ENTRY = 32;
+    private static final long BOXED = 16;
+    /** Anything the walk does not know. */
+    private static final long UNKNOWN = 64;
+
+    private RetainedSizeEstimator() {
+        // Utility class
+    }
+
+    public static long estimate(Object value) {
+        return size(value, new IdentityHashMap<>());
+    }
+
+    private static long size(Object value, Map<Object, Boolean> seen) {
+        if (value == null) return 0;
+        if (value instanceof Boolean || value instanceof Enum<?>) return 0; // shared constants
+        if (seen.put(value, Boolean.TRUE) != null) return 0;
+
+        return switch (value) {
+            case String s -> align(STRING + s.length());
+            case Number n -> BOXED;
+            case double[] a -> align(ARRAY_HEADER + 8L * a.length);
+            case PackedPolyline p -> HEADER + 8 + align(ARRAY_HEADER + 16L * p.size());
+            case Map<?, ?> m -> mapSize(m, seen);
+            case Collection<?> c -> collectionSize(c, seen);
+            case RouteAnalysis a -> HEADER + 2 * REFERENCE
+                    + size(a.getFields(), seen) + size(a.getRoutes(), seen);
+            case RouteAnalysis.Route r -> HEADER + 4 * REFERENCE
+                    + size(r.getFields(), seen) + size(r.getRawDetails(), seen)
+                    + size(r.aqi(), seen) + size(r.pm25(), seen);
+            case RouteDirections d -> HEADER + 2 * REFERENCE
+                    + size(d.getAlternatives(), seen) + size(d.getResampled(), seen);
+            case RouteDirections.Alternative a -> HEADER + 3 * REFERENCE + 16
+                    + size(a.encodedPolyline(), seen) + size(a.distanceText(), seen) + size(a.durationText(), seen);
+            case RouteResponseDTO r -> HEADER + 8 + size(r.getRoutes(), seen);
+            case RouteResponseDTO.RouteDetail d -> HEADER + 3 * REFERENCE + 8
+                    + size(d.getDistance(), seen) + size(d.getDuration(), seen) + size(d.getCoordinates(), seen);
+            case RouteAnalysisResponseDTO r -> HEADER + 8 * REFERENCE
+                    + size(r.getAiFields(), seen) + size(r.getBest(), seen) + size(r.getModerate(), seen)
+                    + size(r.getPoor(), seen) + size(r.getRecommended(), seen)
+                    + size(r.getHealthMetrics(), seen) + size(r.getTradeoffs(), seen)
+                    + size(r.getPredictionJobId(), seen);
+            case HealthMetricsResponseDTO h -> HEADER + 3 * 8;
+            case RouteTradeoffDTO t -> HEADER + 4 * REFERENCE + 16
+                    + size(t.getRoute(), seen) + BOXED * 2;
+            default -> UNKNOWN;
+        };
+    }
+
+    private static long mapSize(Map<?, ?> map, Map<Object, Boolean> seen) {
+        // Table of about twice the entries, as in a HashMap near its load factor
+        long total = HEADER + 32 + align(ARRAY_HEADER + REFERENCE * 2L * map.size());
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            total += MAP_ENTRY + size(entry.getKey(), seen) + size(entry.getValue(), seen);
+        }
+        return total;
+    }
+
+    private static long collectionSize(Collection<?> collection, Map<Object, Boolean> seen) {
+        long total = HEADER + 16 + align(ARRAY_HEADER + REFERENCE * (long) collection.size());
+        if (collection instanceof Set<?>) total += MAP_ENTRY * collection.size();
+        for (Object element : collection) {
+            total += size(element, seen);
+        }
+        return total;
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
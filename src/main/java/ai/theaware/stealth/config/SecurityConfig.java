@@ -3,12 +3,17 @@ package ai.theaware.stealth.config;
 import java.util.Arrays;
 import java.util.List;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.HttpStatusEntryPoint;
 import org.springframework.security.web.header.writers.ReferrerPolicyHeaderWriter;
@@ -28,6 +33,62 @@ public class SecurityConfig {
         this.successHandler = successHandler;
     }
 
+    /**
+     * Prometheus scrape endpoint and the actuator metrics browser: their own
+     * stateless chain with HTTP Basic, so the scraper needs no OAuth2 session
+     * and end users never see internal meters. The password uses the
+     * {@code {id}encoded} form (e.g. {@code {bcrypt}$2a$...}); when it is
+     * blank the endpoint is closed.
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain metricsScrapeFilterChain(
+            HttpSecurity http,
+            @Value("${app.metrics.scrape.username:prometheus}") String username,
+            @Value("${app.metrics.scrape.password:}") String password
+    ) throws Exception {
+        return basicAuthChain(http, "METRICS", username, password,
+                "/actuator/prometheus", "/actuator/metrics/**");
+    }
+
+    /**
+     * Cache administration for operators and the AI service (e.g. new
+     * station data): same stateless HTTP Basic setup as the scrape endpoint,
+     * closed when the password is blank.
+     */
+    @Bean
+    @Order(2)
+    public SecurityFilterChain cacheAdminFilterChain(
+            HttpSecurity http,
+            @Value("${app.cache.admin.username:cache-admin}") String username,
+            @Value("${app.cache.admin.password:}") String password
+    ) throws Exception {
+        return basicAuthChain(http, "CACHE_ADMIN", username, password, "/internal/cache/**");
+    }
+
+    private SecurityFilterChain basicAuthChain(HttpSecurity http, String role, String username,
+                                               String password, String... patterns) throws Exception {
+        boolean enabled = !password.isBlank();
+        http
+            .securityMatcher(patterns)
+            .csrf(csrf -> csrf.disable())
+            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+            .authorizeHttpRequests(auth -> {
+                if (enabled) {
+                    auth.anyRequest().hasRole(role);
+                } else {
+                    auth.anyRequest().denyAll();
+                }
+            })
+            .httpBasic(Customizer.withDefaults());
+
+        if (enabled) {
+            http.userDetailsService(new InMemoryUserDetailsManager(
+                    User.withUsername(username).password(password).roles(role).build()));
+        }
+        return http.build();
+    }
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
@@ -69,7 +130,8 @@ public class SecurityConfig {
                     "/webjars/**"
                 ).permitAll()
 
-                // Actuator — expose only health; lock everything else
+                // Actuator — health is public; prometheus and metrics have their own
+                // chain above; lock everything else
                 .requestMatchers("/actuator/health").permitAll()
                 .requestMatchers("/actuator/**").denyAll()
 
@@ -0,0 +1,127 @@
+package ai.theaware.stealth.config;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import ai.theaware.stealth.dto.RouteCacheKey;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cache key strategy for route requests: snaps origin and destination to a
+ * grid of {@code app.cache.route.cell-meters} cells so requests a few metres
+ * apart share one cache entry. The route stages take the snapped key as
+ * their {@code key = "#key"} argument.
+ *
+ * To help pick the cell size, every request is also replayed against a
+ * shadow key set per candidate resolution (same TTL as the AI analysis
+ * cache, {@code app.cache.route.shadow-max-entries} keys) and counted as a
+ * would-be hit or miss:
+ *
+ *   route.cache.cell.requests{resolution="50m", result="hit|miss", active="true|false"}
+ *   route.cache.cell.hit.ratio{resolution="50m", active="true|false"}
+ */
+@Component
+@Slf4j
+public class SnappedRouteKeyGenerator {
+
+    private final int activeCellMeters;
+    private final Map<Integer, ResolutionShadow> shadows = new LinkedHashMap<>();
+
+    public SnappedRouteKeyGenerator(
+            @Value("${app.cache.route.cell-meters:75}") int activeCellMeters,
+            @Value("${app.cache.route.candidate-cell-meters:25,50,100,200}") int[] candidateCellMeters,
+            @Value("${app.cache.ai-analysis.ttl:1h}") Duration shadowTtl,
+            @Value("${app.cache.route.shadow-max-entries:500}") long shadowMaxEntries,
+            MeterRegistry meterRegistry
+    ) {
+        if (activeCellMeters <= 0) {
+            throw new IllegalArgumentException("app.cache.route.cell-meters must be positive");
+        }
+        this.activeCellMeters = activeCellMeters;
+
+        int[] resolutions = Arrays.stream(candidateCellMeters).filter(m -> m > 0).sorted().distinct().toArray();
+        shadows.put(activeCellMeters,
+                new ResolutionShadow(activeCellMeters, true, shadowTtl, shadowMaxEntries, meterRegistry));
+        for (int cellMeters : resolutions) {
+            shadows.putIfAbsent(cellMeters,
+                    new ResolutionShadow(cellMeters, false, shadowTtl, shadowMaxEntries, meterRegistry));
+        }
+
+        log.info("[CACHE] Route cache keys snapped to {} m cells | shadow resolutions: {}",
+                activeCellMeters, shadows.keySet());
+    }
+
+    /** Snaps to the active resolution and records the request for every shadow resolution. */
+    public RouteCacheKey snap(double sLat, double sLon, double dLat, double dLon) {
+        RouteCacheKey active = null;
+        for (ResolutionShadow shadow : shadows.values()) {
+            RouteCacheKey key = RouteCacheKey.snap(sLat, sLon, dLat, dLon, shadow.cellMeters);
+            shadow.record(key);
+            if (shadow.cellMeters == activeCellMeters) active = key;
+        }
+        return active;
+    }
+
+    public int getActiveCellMeters() {
+        return activeCellMeters;
+    }
+
+    // -------------------------------------------------------------------------
+    // Shadow key set per resolution
+    // -------------------------------------------------------------------------
+
+    private static final class ResolutionShadow {
+
+        private final int cellMeters;
+        private final Cache<RouteCacheKey, Boolean> seen;
+        private final Counter hits;
+        private final Counter misses;
+
+        ResolutionShadow(int cellMeters, boolean active, Duration ttl, long maxEntries, MeterRegistry registry) {
+            this.cellMeters = cellMeters;
+            this.seen = Caffeine.newBuilder()
+                    .expireAfterWrite(ttl)
+                    .maximumSize(maxEntries)
+                    .build();
+
+            String resolution = cellMeters + "m";
+            String activeTag = String.valueOf(active);
+            this.hits = Counter.builder("route.cache.cell.requests")
+                    .description("Route requests that would hit the cache at this cell resolution")
+                    .tags("resolution", resolution, "result", "hit", "active", activeTag)
+                    .register(registry);
+            this.misses = Counter.builder("route.cache.cell.requests")
+                    .description("Route requests that would hit the cache at this cell resolution")
+                    .tags("resolution", resolution, "result", "miss", "active", activeTag)
+                    .register(registry);
+            Gauge.builder("route.cache.cell.hit.ratio", this, ResolutionShadow::hitRatio)
+                    .description("Would-be route cache hit ratio at this cell resolution")
+                    .tags("resolution", resolution, "active", activeTag)
+                    .register(registry);
+        }
+
+        void record(RouteCacheKey key) {
+            if (seen.asMap().putIfAbsent(key, Boolean.TRUE) == null) {
+                misses.increment();
+            } else {
+                hits.increment();
+            }
+        }
+
+        double hitRatio() {
+            double total = hits.count() + misses.count();
+            return total == 0 ? 0.0 : hits.count() / total;
+        }
+    }
+}
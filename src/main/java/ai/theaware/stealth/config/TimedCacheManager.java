@@ -0,0 +1,164 @@
+package ai.theaware.stealth.config;
+
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Wraps a {@link CacheManager} so every cache get and put through the Spring
+ * cache abstraction is timed:
+ *
+ *   route.cache.operation{cache="route_directions", operation="get|get_or_load|put", outcome="hit|miss|success|error"}
+ *
+ * A get_or_load is a miss when it ran the loader, and an error when it
+ * threw, so load latency is not averaged in with hits.
+ */
+public class TimedCacheManager implements CacheManager {
+
+    private final CacheManager delegate;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public TimedCacheManager(CacheManager delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = caches.get(name);
+        if (cache != null) return cache;
+        Cache target = delegate.getCache(name);
+        return target == null ? null : caches.computeIfAbsent(name, n -> new TimedCache(target));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+
+    public CacheManager getDelegate() {
+        return delegate;
+    }
+
+    private void record(String cache, String operation, String outcome, long startNanos) {
+        timers.computeIfAbsent(cache + '|' + operation + '|' + outcome, k -> Timer.builder("route.cache.operation")
+                        .description("Route cache operation latency")
+                        .tags("cache", cache, "operation", operation, "outcome", outcome)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry))
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // -------------------------------------------------------------------------
+    // Timed cache
+    // -------------------------------------------------------------------------
+
+    private final class TimedCache implements Cache {
+
+        private final Cache target;
+
+        TimedCache(Cache target) {
+            this.target = target;
+        }
+
+        @Override
+        public String getName() {
+            return target.getName();
+        }
+
+        @Override
+        public Object getNativeCache() {
+            return target.getNativeCache();
+        }
+
+        @Override
+        public ValueWrapper get(Object key) {
+            long start = System.nanoTime();
+            ValueWrapper value = target.get(key);
+            record(getName(), "get", value != null ? "hit" : "miss", start);
+            return value;
+        }
+
+        @Override
+        public <T> T get(Object key, Class<T> type) {
+            long start = System.nanoTime();
+            T value = target.get(key, type);
+            record(getName(), "get", value != null ? "hit" : "miss", start);
+            return value;
+        }
+
+        @Override
+        public <T> T get(Object key, Callable<T> valueLoader) {
+            long start = System.nanoTime();
+            boolean[] loaded = new boolean[1];
+            String outcome = "error";
+            try {
+                T value = target.get(key, () -> {
+                    loaded[0] = true;
+                    return valueLoader.call();
+                });
+                outcome = loaded[0] ? "miss" : "hit";
+                return value;
+            } finally {
+                record(getName(), "get_or_load", outcome, start);
+            }
+        }
+
+        @Override
+        public CompletableFuture<?> retrieve(Object key) {
+            return target.retrieve(key);
+        }
+
+        @Override
+        public <T> CompletableFuture<T> retrieve(Object key, Supplier<CompletableFuture<T>> valueLoader) {
+            return target.retrieve(key, valueLoader);
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            long start = System.nanoTime();
+            target.put(key, value);
+            record(getName(), "put", "success", start);
+        }
+
+        @Override
+        public ValueWrapper putIfAbsent(Object key, Object value) {
+            long start = System.nanoTime();
+            ValueWrapper existing = target.putIfAbsent(key, value);
+            record(getName(), "put", "success", start);
+            return existing;
+        }
+
+        @Override
+        public void evict(Object key) {
+            target.evict(key);
+        }
+
+        @Override
+        public boolean evictIfPresent(Object key) {
+            return target.evictIfPresent(key);
+        }
+
+        @Override
+        public void clear() {
+            target.clear();
+        }
+
+        @Override
+        public boolean invalidate() {
+            return target.invalidate();
+        }
+    }
+}
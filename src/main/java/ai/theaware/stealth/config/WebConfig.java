@@ -0,0 +1,70 @@
+package ai.theaware.stealth.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Load shedding for the route endpoints that run the pipeline (/process,
+ * /stream, /raw, /debug-resampled), see {@link AdaptiveConcurrencyLimiter}.
+ *
+ * The /predict polls are left out: they wait on a forecast by design, and
+ * their up-to-30 s waits would read as server latency and drag the limit down.
+ */
+@Configuration
+@Slf4j
+public class WebConfig implements WebMvcConfigurer {
+
+    @Value("${app.route.limiter.enabled:true}")
+    private boolean limiterEnabled;
+
+    @Value("${app.route.limiter.initial-limit:20}")
+    private int initialLimit;
+
+    @Value("${app.route.limiter.min-limit:4}")
+    private int minLimit;
+
+    @Value("${app.route.limiter.max-limit:200}")
+    private int maxLimit;
+
+    @Value("${app.route.limiter.tolerance:1.5}")
+    private double tolerance;
+
+    @Value("${app.route.limiter.smoothing:0.2}")
+    private double smoothing;
+
+    @Value("${app.route.limiter.window:1s}")
+    private Duration window;
+
+    @Value("${app.route.limiter.long-window:600}")
+    private int longWindow;
+
+    private final MeterRegistry meterRegistry;
+
+    public WebConfig(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Bean
+    public AdaptiveConcurrencyLimiter routeConcurrencyLimiter() {
+        AdaptiveConcurrencyLimiter.Settings settings = new AdaptiveConcurrencyLimiter.Settings(
+                initialLimit, minLimit, maxLimit, tolerance, smoothing, window, longWindow);
+        log.info("[LIMITER] Route endpoints {} | {}", limiterEnabled ? "limited" : "unlimited", settings);
+        return new AdaptiveConcurrencyLimiter(settings, meterRegistry);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (!limiterEnabled) return;
+        registry.addInterceptor(new ConcurrencyLimitInterceptor(routeConcurrencyLimiter()))
+                .addPathPatterns("/api/routes/process", "/api/routes/stream",
+                        "/api/routes/raw", "/api/routes/debug-resampled");
+    }
+}
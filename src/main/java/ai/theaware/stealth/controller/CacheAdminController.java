@@ -0,0 +1,88 @@
+package ai.theaware.stealth.controller;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import ai.theaware.stealth.dto.CacheStatsDTO;
+import ai.theaware.stealth.service.CacheAdminService;
+import ai.theaware.stealth.service.ForecastCacheInvalidator;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+
+/** Route cache administration; HTTP Basic, see {@code SecurityConfig#cacheAdminFilterChain}. */
+@RestController
+@RequestMapping("/internal/cache")
+@Validated
+public class CacheAdminController {
+
+    private final ForecastCacheInvalidator forecastCacheInvalidator;
+    private final CacheAdminService cacheAdminService;
+
+    public CacheAdminController(ForecastCacheInvalidator forecastCacheInvalidator,
+                                CacheAdminService cacheAdminService) {
+        this.forecastCacheInvalidator = forecastCacheInvalidator;
+        this.cacheAdminService = cacheAdminService;
+    }
+
+    /** Hit rate, loads, evictions and weighted size of every route cache. */
+    @GetMapping
+    public List<CacheStatsDTO> stats() {
+        return cacheAdminService.stats();
+    }
+
+    @GetMapping("/{name}")
+    public ResponseEntity<CacheStatsDTO> stats(@PathVariable String name) {
+        return ResponseEntity.of(cacheAdminService.stats(name));
+    }
+
+    /** Drops every entry of one cache. */
+    @DeleteMapping("/{name}")
+    public ResponseEntity<Void> invalidate(@PathVariable String name) {
+        return cacheAdminService.invalidate(name)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    /** Drops one origin/destination pair from every route cache. */
+    @DeleteMapping("/entries")
+    public Map<String, Boolean> invalidateRoute(
+            @RequestParam @NotNull @DecimalMin("-90.0") @DecimalMax("90.0") Double sLat,
+            @RequestParam @NotNull @DecimalMin("-180.0") @DecimalMax("180.0") Double sLon,
+            @RequestParam @NotNull @DecimalMin("-90.0") @DecimalMax("90.0") Double dLat,
+            @RequestParam @NotNull @DecimalMin("-180.0") @DecimalMax("180.0") Double dLon) {
+        return cacheAdminService.invalidate(null, sLat, sLon, dLat, dLon);
+    }
+
+    /** Drops one origin/destination pair from one cache. */
+    @DeleteMapping("/{name}/entries")
+    public ResponseEntity<Map<String, Boolean>> invalidateRoute(
+            @PathVariable String name,
+            @RequestParam @NotNull @DecimalMin("-90.0") @DecimalMax("90.0") Double sLat,
+            @RequestParam @NotNull @DecimalMin("-180.0") @DecimalMax("180.0") Double sLon,
+            @RequestParam @NotNull @DecimalMin("-90.0") @DecimalMax("90.0") Double dLat,
+            @RequestParam @NotNull @DecimalMin("-180.0") @DecimalMax("180.0") Double dLon) {
+        Map<String, Boolean> evicted = cacheAdminService.invalidate(name, sLat, sLon, dLat, dLon);
+        return evicted.isEmpty() ? ResponseEntity.notFound().build() : ResponseEntity.ok(evicted);
+    }
+
+    /**
+     * Called when new station readings land: AQI-derived entries are served
+     * stale and reloaded in the background from their next read, and
+     * finished shared forecasts are dropped.
+     */
+    @PostMapping("/station-data")
+    public ResponseEntity<Map<String, Integer>> stationDataUpdated() {
+        return ResponseEntity.ok(forecastCacheInvalidator.stationDataUpdated());
+    }
+}
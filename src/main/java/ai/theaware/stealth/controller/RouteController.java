@@ -1,21 +1,28 @@
 package ai.theaware.stealth.controller;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.util.Map;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import ai.theaware.stealth.config.ConcurrencyLimitInterceptor;
 import ai.theaware.stealth.dto.PredictionResponseDTO;
 import ai.theaware.stealth.dto.RouteAnalysisResponseDTO;
 import ai.theaware.stealth.dto.RouteRequestDTO;
@@ -23,10 +30,15 @@ import ai.theaware.stealth.dto.RouteResponseDTO;
 import ai.theaware.stealth.entity.Users;
 import ai.theaware.stealth.service.GoogleRoutingService;
 import ai.theaware.stealth.service.PredictionService;
+import ai.theaware.stealth.service.RouteStream;
+import ai.theaware.stealth.service.RouteStreamListener;
 import ai.theaware.stealth.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.DecimalMax;
 import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import lombok.extern.slf4j.Slf4j;
 
@@ -40,10 +52,13 @@ public class RouteController {
     private final GoogleRoutingService googleRoutingService;
     private final UserService userService;
     private final ObjectMapper objectMapper;
+    private final Duration streamTimeout;
 
     public RouteController(GoogleRoutingService googleRoutingService, UserService userService,
-                           PredictionService predictionService) {
+                           PredictionService predictionService,
+                           @Value("${app.route.stream.timeout:60s}") Duration streamTimeout) {
         this.googleRoutingService = googleRoutingService;
+        this.streamTimeout = streamTimeout;
         this.predictionService = predictionService;
         this.userService = userService;
         this.objectMapper = new ObjectMapper();
@@ -65,7 +80,8 @@ public class RouteController {
             return ResponseEntity.status(401).build();
         }
 
-        RouteResponseDTO processedData = googleRoutingService.getProcessedRouteDTO(sLat, sLon, dLat, dLon);
+        RouteResponseDTO processedData = googleRoutingService.getProcessedRouteDTO(
+                sLat, sLon, dLat, dLon, sanitizeEmail(principal.getAttribute("email")));
         return ResponseEntity.ok(processedData);
     }
 
@@ -103,6 +119,52 @@ public class RouteController {
         return ResponseEntity.ok(result);
     }
 
+    /**
+     * Server-Sent Events variant of /process. Emits, in order:
+     *   geometry – resampled alternatives as soon as Directions returns
+     *   analysis – AI analysis with rank labels and health metrics
+     *   forecast – prediction result once it completes
+     * then closes the stream; a pipeline failure sends an "error" event
+     * instead. The servlet thread is released immediately, but the request
+     * keeps its concurrency-limit permit until the analysis is sent. A
+     * client that disconnects or a stream that times out stops the pipeline
+     * and its prediction job.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamRoute(
+            @RequestParam @NotNull @DecimalMin("-90.0") @DecimalMax("90.0")   Double sLat,
+            @RequestParam @NotNull @DecimalMin("-180.0") @DecimalMax("180.0") Double sLon,
+            @RequestParam @NotNull @DecimalMin("-90.0") @DecimalMax("90.0")   Double dLat,
+            @RequestParam @NotNull @DecimalMin("-180.0") @DecimalMax("180.0") Double dLon,
+            @AuthenticationPrincipal OAuth2User principal,
+            HttpServletRequest request) {
+
+        if (principal == null) {
+            return ResponseEntity.status(401).build();
+        }
+
+        String email = sanitizeEmail(principal.getAttribute("email"));
+        if (email == null) {
+            return ResponseEntity.status(401).build();
+        }
+
+        if (sLat.equals(dLat) && sLon.equals(dLon)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        Users user = userService.findByEmail(email);
+
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        ConcurrencyLimitInterceptor.Permit permit = ConcurrencyLimitInterceptor.holdAcrossAsync(request);
+        RouteStream stream = googleRoutingService.streamRoute(
+                sLat, sLon, dLat, dLon, user, new SseRouteStreamListener(emitter, email, permit));
+        // No-ops once the pipeline and forecast have finished
+        emitter.onCompletion(() -> end(stream, permit));
+        emitter.onTimeout(() -> end(stream, permit));
+        emitter.onError(error -> end(stream, permit));
+        return ResponseEntity.ok(emitter);
+    }
+
     @GetMapping("/predict")
     public ResponseEntity<PredictionResponseDTO> getPrediction(
             @AuthenticationPrincipal OAuth2User principal) {
@@ -138,6 +200,38 @@ public class RouteController {
         return ResponseEntity.ok(result);
     }
 
+    /**
+     * Polls (wait=0) or awaits (up to 30 s) one prediction job started by
+     * /process or /stream. 202 while pending, 410 once superseded or
+     * cancelled, 404 if unknown, expired or owned by another user.
+     */
+    @GetMapping("/predict/{jobId}")
+    public ResponseEntity<PredictionResponseDTO> getPredictionJob(
+            @PathVariable String jobId,
+            @RequestParam(defaultValue = "0") @Min(0) @Max(30) int wait,
+            @AuthenticationPrincipal OAuth2User principal) {
+
+        if (principal == null) {
+            return ResponseEntity.status(401).build();
+        }
+
+        String email = sanitizeEmail(principal.getAttribute("email"));
+        if (email == null) {
+            return ResponseEntity.status(401).build();
+        }
+
+        return predictionService.findJob(email, jobId)
+                .map(job -> {
+                    PredictionResponseDTO result = predictionService.awaitJob(job, Duration.ofSeconds(wait));
+                    return switch (String.valueOf(result.getStatus())) {
+                        case "pending" -> ResponseEntity.accepted().body(result);
+                        case "cancelled" -> ResponseEntity.status(410).body(result);
+                        default -> ResponseEntity.ok(result);
+                    };
+                })
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
     @GetMapping("/raw")
     public ResponseEntity<?> getRawRoute(
             @RequestParam @NotNull @DecimalMin("-90.0") @DecimalMax("90.0")   Double sLat,
@@ -150,7 +244,8 @@ public class RouteController {
             return ResponseEntity.status(401).body(Map.of("error", "User not authenticated"));
         }
 
-        RouteResponseDTO result = googleRoutingService.getRawRouteDTO(sLat, sLon, dLat, dLon);
+        RouteResponseDTO result = googleRoutingService.getRawRouteDTO(
+                sLat, sLon, dLat, dLon, sanitizeEmail(principal.getAttribute("email")));
         return ResponseEntity.ok(result);
     }
 
@@ -158,6 +253,66 @@ public class RouteController {
     // Helpers
     // -------------------------------------------------------------------------
 
+    /** A stream that ended before its analysis was sent gives back its permit without a sample. */
+    private static void end(RouteStream stream, ConcurrencyLimitInterceptor.Permit permit) {
+        stream.cancel();
+        permit.release();
+    }
+
+    /**
+     * Forwards pipeline stages to an SSE stream; a disconnected client just
+     * ends it. The permit ends with the analysis, as a /process request
+     * would with its response, or as dropped if the pipeline failed.
+     */
+    private static final class SseRouteStreamListener implements RouteStreamListener {
+
+        private final SseEmitter emitter;
+        private final String email;
+        private final ConcurrencyLimitInterceptor.Permit permit;
+
+        SseRouteStreamListener(SseEmitter emitter, String email, ConcurrencyLimitInterceptor.Permit permit) {
+            this.emitter = emitter;
+            this.email = email;
+            this.permit = permit;
+        }
+
+        @Override
+        public void onGeometry(RouteResponseDTO geometry) {
+            send("geometry", geometry);
+        }
+
+        @Override
+        public void onAnalysis(RouteAnalysisResponseDTO analysis) {
+            send("analysis", analysis);
+            permit.succeeded();
+        }
+
+        @Override
+        public void onForecast(PredictionResponseDTO forecast) {
+            send("forecast", forecast);
+        }
+
+        @Override
+        public void onError(String message) {
+            send("error", Map.of("error", message));
+            permit.dropped();
+        }
+
+        @Override
+        public void onComplete() {
+            permit.release();
+            emitter.complete();
+        }
+
+        private void send(String event, Object data) {
+            try {
+                emitter.send(SseEmitter.event().name(event).data(data, MediaType.APPLICATION_JSON));
+            } catch (IOException | IllegalStateException e) {
+                log.debug("[STREAM] Could not send {} to {}: {}", event, email, e.getMessage());
+            }
+        }
+    }
+
     /**
      * Strips whitespace and enforces a sane max length on the email extracted
      * from the OAuth2 token. The token is trusted (signed by Google), but this
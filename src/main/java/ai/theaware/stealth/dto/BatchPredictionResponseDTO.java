@@ -0,0 +1,53 @@
+package ai.theaware.stealth.dto;
+
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import ai.theaware.stealth.dto.PredictionResponseDTO.Meta;
+import ai.theaware.stealth.dto.PredictionResponseDTO.RouteForecast;
+import ai.theaware.stealth.dto.PredictionResponseDTO.StationForecastEntry;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Response of the AI service's predict-batch endpoint: one set of station
+ * forecasts shared by the batch, and route forecasts per request id.
+ */
+@Data
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BatchPredictionResponseDTO {
+
+    private String status;
+
+    private String message;
+
+    @JsonProperty("station_forecasts")
+    private Map<String, List<StationForecastEntry>> stationForecasts;
+
+    private Map<String, Result> results;
+
+    private Meta meta;
+
+    @Data
+    @NoArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Result {
+        @JsonProperty("route_forecasts")
+        private Map<String, RouteForecast> routeForecasts;
+    }
+
+    /** The single-request view for one id, as predict-all-stations would return it. */
+    public PredictionResponseDTO toPrediction(String id) {
+        Result result = results != null ? results.get(id) : null;
+        if (!"success".equals(status) || result == null) {
+            PredictionResponseDTO error = new PredictionResponseDTO();
+            error.setStatus("error");
+            return error;
+        }
+        return new PredictionResponseDTO(status, stationForecasts, result.getRouteForecasts(), meta);
+    }
+}
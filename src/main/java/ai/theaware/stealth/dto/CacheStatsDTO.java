@@ -0,0 +1,50 @@
+package ai.theaware.stealth.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Caffeine statistics and memory use of one route cache, since startup. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatsDTO {
+
+    @JsonProperty("cache")
+    private String cache;
+
+    @JsonProperty("entries")
+    private long entries;
+
+    @JsonProperty("weighted_bytes")
+    private long weightedBytes;
+
+    @JsonProperty("max_bytes")
+    private long maxBytes;
+
+    @JsonProperty("hit_rate")
+    private double hitRate;
+
+    @JsonProperty("hits")
+    private long hits;
+
+    @JsonProperty("misses")
+    private long misses;
+
+    @JsonProperty("loads")
+    private long loads;
+
+    @JsonProperty("load_failures")
+    private long loadFailures;
+
+    @JsonProperty("avg_load_ms")
+    private double avgLoadMs;
+
+    @JsonProperty("evictions")
+    private long evictions;
+
+    @JsonProperty("evicted_bytes")
+    private long evictedBytes;
+}
@@ -0,0 +1,205 @@
+package ai.theaware.stealth.dto;
+
+import java.util.Arrays;
+
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.SerializationContext;
+import tools.jackson.databind.annotation.JsonSerialize;
+import tools.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * Route geometry as one packed {@code double[]} of interleaved
+ * {@code lat0, lng0, lat1, lng1, ...} values.
+ *
+ * Replaces the List-of-Coordinate representation so a route can be decoded,
+ * resampled, sent to the AI service and written to PostGIS without allocating
+ * an object per point. Instances are immutable once built.
+ *
+ * Serialises to the same JSON shape the AI service expects:
+ * {@code [{"lat": .., "lng": ..}, ...]}.
+ */
+@JsonSerialize(using = PackedPolyline.Serializer.class)
+public final class PackedPolyline {
+
+    public static final PackedPolyline EMPTY = new PackedPolyline(new double[0], 0);
+
+    private final double[] coords;
+    private final int size;
+
+    private PackedPolyline(double[] coords, int size) {
+        this.coords = coords;
+        this.size = size;
+    }
+
+    /**
+     * Wraps an interleaved lat/lng array. The array is not copied; the caller
+     * must not modify it afterwards.
+     */
+    public static PackedPolyline wrap(double[] latLng, int size) {
+        if (size < 0 || size * 2 > latLng.length) {
+            throw new IllegalArgumentException("size " + size + " exceeds packed array of length " + latLng.length);
+        }
+        return size == 0 ? EMPTY : new PackedPolyline(latLng, size);
+    }
+
+    /**
+     * Decodes a Google encoded polyline (the Directions overview polyline)
+     * straight into packed form. Values match {@code EncodedPolyline.decodePath()}.
+     */
+    public static PackedPolyline decode(String encoded) {
+        if (encoded == null || encoded.isEmpty()) return EMPTY;
+
+        int len = encoded.length();
+
+        // Every encoded value ends with a chunk below 0x20, two values per point.
+        int values = 0;
+        for (int i = 0; i < len; i++) {
+            if (encoded.charAt(i) - 63 < 0x20) values++;
+        }
+        int points = values / 2;
+        double[] coords = new double[points * 2];
+
+        int index = 0;
+        int lat = 0;
+        int lng = 0;
+        for (int p = 0; p < points; p++) {
+            int result = 1;
+            int shift = 0;
+            int b;
+            do {
+                b = encoded.charAt(index++) - 63 - 1;
+                result += b << shift;
+                shift += 5;
+            } while (b >= 0x1f);
+            lat += (result & 1) != 0 ? ~(result >> 1) : (result >> 1);
+
+            result = 1;
+            shift = 0;
+            do {
+                b = encoded.charAt(index++) - 63 - 1;
+                result += b << shift;
+                shift += 5;
+            } while (b >= 0x1f);
+            lng += (result & 1) != 0 ? ~(result >> 1) : (result >> 1);
+
+            coords[2 * p] = lat * 1e-5;
+            coords[2 * p + 1] = lng * 1e-5;
+        }
+        return wrap(coords, points);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public double lat(int i) {
+        return coords[2 * i];
+    }
+
+    public double lng(int i) {
+        return coords[2 * i + 1];
+    }
+
+    /**
+     * Copies the points into x/y (lng/lat) order for a JTS
+     * {@code PackedCoordinateSequence.Double} with dimension 2.
+     */
+    public double[] toLngLatArray() {
+        double[] xy = new double[size * 2];
+        for (int i = 0; i < size; i++) {
+            xy[2 * i] = coords[2 * i + 1];
+            xy[2 * i + 1] = coords[2 * i];
+        }
+        return xy;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PackedPolyline other) || other.size != size) return false;
+        return Arrays.equals(coords, 0, size * 2, other.coords, 0, size * 2);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = size;
+        for (int i = 0; i < size * 2; i++) {
+            long bits = Double.doubleToLongBits(coords[i]);
+            h = 31 * h + (int) (bits ^ (bits >>> 32));
+        }
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        return "PackedPolyline{size=" + size + "}";
+    }
+
+    // -------------------------------------------------------------------------
+    // Builder
+    // -------------------------------------------------------------------------
+
+    /**
+     * Growable packed buffer. {@link #build()} returns a trimmed copy, so one
+     * builder can be {@link #reset()} and reused for several routes.
+     */
+    public static final class Builder {
+
+        private double[] coords;
+        private int size;
+
+        public Builder(int expectedPoints) {
+            this.coords = new double[Math.max(2, expectedPoints * 2)];
+        }
+
+        public Builder add(double lat, double lng) {
+            if (size * 2 == coords.length) {
+                coords = Arrays.copyOf(coords, coords.length * 2);
+            }
+            coords[2 * size] = lat;
+            coords[2 * size + 1] = lng;
+            size++;
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public Builder reset() {
+            size = 0;
+            return this;
+        }
+
+        public PackedPolyline build() {
+            return wrap(Arrays.copyOf(coords, size * 2), size);
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // JSON
+    // -------------------------------------------------------------------------
+
+    public static final class Serializer extends StdSerializer<PackedPolyline> {
+
+        public Serializer() {
+            super(PackedPolyline.class);
+        }
+
+        @Override
+        public void serialize(PackedPolyline value, JsonGenerator gen, SerializationContext ctxt) {
+            gen.writeStartArray(value, value.size);
+            for (int i = 0; i < value.size; i++) {
+                gen.writeStartObject();
+                gen.writeNumberProperty("lat", value.coords[2 * i]);
+                gen.writeNumberProperty("lng", value.coords[2 * i + 1]);
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package ai.theaware.stealth.dto;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+/**
+ * Typed form of the AI service's analyze-routes response.
+ *
+ * The per-point AQI and PM2.5 values the scoring and health metrics need are
+ * held in primitive arrays; everything else passes through to the client
+ * unchanged: top-level and per-route fields as parsed, and each route's
+ * {@code details} array as the raw JSON it arrived as.
+ *
+ * Instances are shared by every cache hit and must not be mutated.
+ */
+public final class RouteAnalysis {
+
+    public static final String ROUTE_ANALYSIS = "route_analysis";
+
+    private final Map<String, Object> fields;
+    private final Map<String, Route> routes;
+
+    /**
+     * @param fields top-level fields in response order; {@code route_analysis},
+     *               when it was an object, maps to {@code routes}
+     * @param routes route id → route, or {@code null} when the block was
+     *               missing or not an object
+     */
+    public RouteAnalysis(Map<String, Object> fields, Map<String, Route> routes) {
+        this.fields = Collections.unmodifiableMap(fields);
+        this.routes = routes == null ? null : Collections.unmodifiableMap(routes);
+    }
+
+    /** Top-level fields for the client response. */
+    public Map<String, Object> getFields() {
+        return fields;
+    }
+
+    /** Route id → route; {@code null} when {@code route_analysis} was missing or invalid. */
+    public Map<String, Route> getRoutes() {
+        return routes;
+    }
+
+    // -------------------------------------------------------------------------
+    // Route
+    // -------------------------------------------------------------------------
+
+    /** One entry of {@code route_analysis}; serialises back to the shape it was read from. */
+    public static final class Route {
+
+        private static final double[] NONE = new double[0];
+
+        private final Map<String, Object> fields;
+        private final String rawDetails;
+        private final double[] aqi;
+        private final double[] pm25;
+
+        /**
+         * @param fields     scalar and nested fields other than {@code details}, in response order
+         * @param rawDetails the {@code details} array as JSON, or {@code null} when absent
+         * @param aqi        numeric per-point AQI values, in point order
+         * @param pm25       numeric per-point PM2.5 values, in point order
+         */
+        public Route(Map<String, Object> fields, String rawDetails, double[] aqi, double[] pm25) {
+            this.fields = Collections.unmodifiableMap(new LinkedHashMap<>(fields));
+            this.rawDetails = rawDetails;
+            this.aqi = aqi != null ? aqi : NONE;
+            this.pm25 = pm25 != null ? pm25 : NONE;
+        }
+
+        /** A route with no fields and no points. */
+        public static Route empty() {
+            return new Route(Map.of(), null, NONE, NONE);
+        }
+
+        @JsonAnyGetter
+        public Map<String, Object> getFields() {
+            return fields;
+        }
+
+        @JsonProperty("details")
+        @JsonRawValue
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        public String getRawDetails() {
+            return rawDetails;
+        }
+
+        /** Human-readable duration such as "1 hour 5 mins", or {@code null}. */
+        @JsonIgnore
+        public String getDuration() {
+            return fields.get("duration") instanceof String duration ? duration : null;
+        }
+
+        /** Precomputed {@code avg_aqi}, or {@code null} when the service did not send one. */
+        @JsonIgnore
+        public Double getAvgAqi() {
+            return number(fields.get("avg_aqi"));
+        }
+
+        /** Precomputed {@code avg_pm25}, or {@code null} when the service did not send one. */
+        @JsonIgnore
+        public Double getAvgPm25() {
+            return number(fields.get("avg_pm25"));
+        }
+
+        /** Per-point AQI. Shared; do not modify. */
+        @JsonIgnore
+        public double[] aqi() {
+            return aqi;
+        }
+
+        /** Per-point PM2.5. Shared; do not modify. */
+        @JsonIgnore
+        public double[] pm25() {
+            return pm25;
+        }
+
+        private static Double number(Object value) {
+            return value instanceof Number number ? number.doubleValue() : null;
+        }
+    }
+}
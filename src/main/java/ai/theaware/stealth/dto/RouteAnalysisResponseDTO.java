@@ -1,6 +1,7 @@
 package ai.theaware.stealth.dto;
 
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import com.fasterxml.jackson.annotation.JsonAnyGetter;
@@ -19,7 +20,9 @@ import lombok.NoArgsConstructor;
     "moderate", 
     "poor", 
     "recommended",
-    "health_metrics" 
+    "health_metrics",
+    "tradeoffs",
+    "prediction_job_id"
 })
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class RouteAnalysisResponseDTO {
@@ -41,11 +44,34 @@ public class RouteAnalysisResponseDTO {
     @JsonProperty("health_metrics")
     private HealthMetricsResponseDTO healthMetrics;
 
+    @JsonProperty("tradeoffs")
+    private List<RouteTradeoffDTO> tradeoffs;
+
+    @JsonProperty("prediction_job_id")
+    private String predictionJobId;
+
     @JsonAnyGetter
     public Map<String, Object> getAiFields() {
         return aiFields;
     }
 
+    /**
+     * Shallow copy carrying the caller's prediction job id, so a cached
+     * response shared between users is never mutated.
+     */
+    public RouteAnalysisResponseDTO withPredictionJobId(String jobId) {
+        RouteAnalysisResponseDTO copy = new RouteAnalysisResponseDTO();
+        copy.aiFields = aiFields;
+        copy.best = best;
+        copy.moderate = moderate;
+        copy.poor = poor;
+        copy.recommended = recommended;
+        copy.healthMetrics = healthMetrics;
+        copy.tradeoffs = tradeoffs;
+        copy.predictionJobId = jobId;
+        return copy;
+    }
+
     @JsonAnySetter
     public void setAiField(String name, Object value) {
         if (aiFields == null) {
@@ -0,0 +1,52 @@
+package ai.theaware.stealth.dto;
+
+/**
+ * Cache key for a route request with origin and destination snapped to a
+ * square grid of {@code cellMeters} cells.
+ *
+ * Rows are fixed-height latitude bands; each row is split into columns whose
+ * width in degrees of longitude is widened by 1/cos(row latitude), so cells
+ * stay roughly {@code cellMeters} square at any latitude. Two requests whose
+ * endpoints fall into the same pair of cells share one key.
+ */
+public record RouteCacheKey(int cellMeters,
+                            int originRow, int originCol,
+                            int destinationRow, int destinationCol) {
+
+    private static final double METERS_PER_DEGREE = 111_320.0;
+
+    /** Keeps column width finite at the poles. */
+    private static final double MIN_COS_LAT = 0.01;
+
+    public static RouteCacheKey snap(double sLat, double sLon, double dLat, double dLon, int cellMeters) {
+        if (cellMeters <= 0) {
+            throw new IllegalArgumentException("cellMeters must be positive, got " + cellMeters);
+        }
+        int originRow = row(sLat, cellMeters);
+        int destinationRow = row(dLat, cellMeters);
+        return new RouteCacheKey(cellMeters,
+                originRow, col(originRow, sLon, cellMeters),
+                destinationRow, col(destinationRow, dLon, cellMeters));
+    }
+
+    /** Stable textual form, e.g. {@code 75m:12345,67890>12350,67901}. */
+    public String id() {
+        return cellMeters + "m:" + originRow + "," + originCol + ">" + destinationRow + "," + destinationCol;
+    }
+
+    @Override
+    public String toString() {
+        return id();
+    }
+
+    private static int row(double lat, int cellMeters) {
+        return (int) Math.floor((lat + 90.0) * METERS_PER_DEGREE / cellMeters);
+    }
+
+    private static int col(int row, double lon, int cellMeters) {
+        double rowCenterLat = (row + 0.5) * cellMeters / METERS_PER_DEGREE - 90.0;
+        double cosLat = Math.max(MIN_COS_LAT, Math.cos(Math.toRadians(rowCenterLat)));
+        double cellWidthDeg = cellMeters / (METERS_PER_DEGREE * cosLat);
+        return (int) Math.floor((lon + 180.0) / cellWidthDeg);
+    }
+}
@@ -0,0 +1,62 @@
+package ai.theaware.stealth.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.maps.model.DirectionsResult;
+import com.google.maps.model.DirectionsRoute;
+
+import lombok.Getter;
+
+/**
+ * The part of a Google Directions result the pipeline actually uses: one
+ * encoded overview polyline, distance and duration per alternative.
+ *
+ * This is what the Directions cache stores, so it stays small and free of
+ * the Google client model. The resampled geometry sent to the AI service is
+ * derived once when the instance is built and shared by every cache hit.
+ */
+@Getter
+public class RouteDirections {
+
+    private final List<Alternative> alternatives;
+    private final RouteResponseDTO resampled;
+
+    public RouteDirections(List<Alternative> alternatives, RouteResponseDTO resampled) {
+        this.alternatives = List.copyOf(alternatives);
+        this.resampled = resampled;
+    }
+
+    public record Alternative(String encodedPolyline,
+                              String distanceText,
+                              long distanceMeters,
+                              String durationText,
+                              long durationSeconds) {
+    }
+
+    public static List<Alternative> alternativesOf(DirectionsResult result) {
+        List<Alternative> alternatives = new ArrayList<>(result.routes.length);
+        for (DirectionsRoute route : result.routes) {
+            alternatives.add(new Alternative(
+                    route.overviewPolyline.getEncodedPath(),
+                    route.legs[0].distance.humanReadable,
+                    route.legs[0].distance.inMeters,
+                    route.legs[0].duration.humanReadable,
+                    route.legs[0].duration.inSeconds
+            ));
+        }
+        return alternatives;
+    }
+
+    public int getRouteCount() {
+        return alternatives.size();
+    }
+
+    public boolean isEmpty() {
+        return alternatives.isEmpty();
+    }
+
+    public Alternative getPrimary() {
+        return alternatives.get(0);
+    }
+}
@@ -21,14 +21,6 @@ public class RouteResponseDTO {
         private String distance;
         private long distanceValue;
         private String duration;
-        private List<Coordinate> coordinates;
-    }
-
-    @Data
-    @NoArgsConstructor
-    @AllArgsConstructor
-    public static class Coordinate {
-        private double lat;
-        private double lng;
+        private PackedPolyline coordinates;
     }
 }
\ No newline at end of file
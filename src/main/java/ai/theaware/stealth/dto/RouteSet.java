@@ -0,0 +1,130 @@
+package ai.theaware.stealth.dto;
+
+import java.util.Map;
+
+/**
+ * Column-oriented view of one request's alternatives for the route
+ * evaluation engine: route {@code i} is the {@code i}-th entry of every
+ * array. Durations come from Google in seconds; AQI and PM2.5 are the
+ * per-point values of the AI analysis.
+ *
+ * Arrays are shared, not copied; the set is built per request and never
+ * modified after construction.
+ */
+public final class RouteSet {
+
+    private static final double[] NONE = new double[0];
+
+    private final String[] routeIds;
+    private final double[] durationSeconds;
+    private final double[][] aqi;
+    private final double[][] pm25;
+    private final double[] avgAqi;
+    private final double[] avgPm25;
+
+    /**
+     * @param avgAqi  precomputed mean AQI per route, {@code NaN} where the mean
+     *                should be taken over {@code aqi}
+     * @param avgPm25 precomputed mean PM2.5 per route, {@code NaN} likewise
+     */
+    public RouteSet(String[] routeIds, double[] durationSeconds, double[][] aqi, double[][] pm25,
+                    double[] avgAqi, double[] avgPm25) {
+        int n = routeIds.length;
+        if (durationSeconds.length != n || aqi.length != n || pm25.length != n
+                || avgAqi.length != n || avgPm25.length != n) {
+            throw new IllegalArgumentException("RouteSet columns must all have " + n + " entries");
+        }
+        this.routeIds = routeIds;
+        this.durationSeconds = durationSeconds;
+        this.aqi = aqi;
+        this.pm25 = pm25;
+        this.avgAqi = avgAqi;
+        this.avgPm25 = avgPm25;
+    }
+
+    /**
+     * Joins the AI analysis with the Directions durations. AI route ids
+     * {@code Route_k} map to the {@code k}-th Google alternative; when the
+     * analysis has no routes, {@code Route_1..n} are used with no points.
+     */
+    public static RouteSet of(RouteAnalysis analysis, RouteDirections directions) {
+        Map<String, RouteAnalysis.Route> routes = analysis.getRoutes();
+        int n = routes == null || routes.isEmpty() ? directions.getRouteCount() : routes.size();
+
+        String[] ids = new String[n];
+        double[] seconds = new double[n];
+        double[][] aqi = new double[n][];
+        double[][] pm25 = new double[n][];
+        double[] avgAqi = new double[n];
+        double[] avgPm25 = new double[n];
+
+        if (routes == null || routes.isEmpty()) {
+            for (int i = 0; i < n; i++) {
+                ids[i] = "Route_" + (i + 1);
+                seconds[i] = directions.getAlternatives().get(i).durationSeconds();
+                aqi[i] = NONE;
+                pm25[i] = NONE;
+                avgAqi[i] = Double.NaN;
+                avgPm25[i] = Double.NaN;
+            }
+            return new RouteSet(ids, seconds, aqi, pm25, avgAqi, avgPm25);
+        }
+
+        int i = 0;
+        for (Map.Entry<String, RouteAnalysis.Route> entry : routes.entrySet()) {
+            RouteAnalysis.Route route = entry.getValue();
+            ids[i] = entry.getKey();
+            seconds[i] = durationSeconds(directions, entry.getKey());
+            aqi[i] = route.aqi();
+            pm25[i] = route.pm25();
+            Double precomputedAqi = route.getAvgAqi();
+            Double precomputedPm25 = route.getAvgPm25();
+            avgAqi[i] = precomputedAqi != null ? precomputedAqi : Double.NaN;
+            avgPm25[i] = precomputedPm25 != null ? precomputedPm25 : Double.NaN;
+            i++;
+        }
+        return new RouteSet(ids, seconds, aqi, pm25, avgAqi, avgPm25);
+    }
+
+    private static double durationSeconds(RouteDirections directions, String routeId) {
+        if (!routeId.startsWith("Route_")) return 0.0;
+        try {
+            int index = Integer.parseInt(routeId.substring("Route_".length())) - 1;
+            return index >= 0 && index < directions.getRouteCount()
+                    ? directions.getAlternatives().get(index).durationSeconds()
+                    : 0.0;
+        } catch (NumberFormatException e) {
+            return 0.0;
+        }
+    }
+
+    public int size() {
+        return routeIds.length;
+    }
+
+    public String routeId(int route) {
+        return routeIds[route];
+    }
+
+    public double durationSeconds(int route) {
+        return durationSeconds[route];
+    }
+
+    public double[] aqi(int route) {
+        return aqi[route];
+    }
+
+    public double[] pm25(int route) {
+        return pm25[route];
+    }
+
+    /** Precomputed mean AQI, or {@code NaN}. */
+    public double avgAqi(int route) {
+        return avgAqi[route];
+    }
+
+    /** Precomputed mean PM2.5, or {@code NaN}. */
+    public double avgPm25(int route) {
+        return avgPm25[route];
+    }
+}
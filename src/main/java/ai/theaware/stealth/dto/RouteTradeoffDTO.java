@@ -0,0 +1,36 @@
+package ai.theaware.stealth.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One Pareto-optimal route for the time/exposure slider. The route ranks
+ * first for every scoring weight in [weight_from, weight_to], where 0 scores
+ * on time only and 1 on exposure only; both are absent when the route is
+ * never first but is still not beaten on both axes.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RouteTradeoffDTO {
+
+    @JsonProperty("route")
+    private String route;
+
+    @JsonProperty("duration_min")
+    private double durationMin;
+
+    @JsonProperty("exposure")
+    private double exposure;
+
+    @JsonProperty("weight_from")
+    private Double weightFrom;
+
+    @JsonProperty("weight_to")
+    private Double weightTo;
+}
@@ -0,0 +1,61 @@
+package ai.theaware.stealth.entity;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.persistence.CollectionTable;
+import jakarta.persistence.Column;
+import jakarta.persistence.ElementCollection;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.OrderColumn;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Second-level Directions cache row, shared by every node and kept across
+ * restarts. Keyed by {@code RouteCacheKey.id()}, which includes the cell size,
+ * so changing the resolution never serves rows snapped at another size.
+ */
+@Entity
+@Data
+@Table(name = "directions_cache",
+       indexes = @Index(name = "idx_directions_cache_expires_at", columnList = "expiresAt"))
+public class DirectionsCacheEntry {
+
+    @Id
+    @Column(nullable = false, length = 100)
+    private String cacheKey;
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "directions_cache_alternatives",
+                     joinColumns = @JoinColumn(name = "cache_key"))
+    @OrderColumn(name = "alternative_index")
+    private List<Alternative> alternatives = new ArrayList<>();
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    public static class Alternative {
+
+        @Column(columnDefinition = "TEXT", nullable = false)
+        private String encodedPolyline;
+
+        private String distanceText;
+        private long distanceMeters;
+        private String durationText;
+        private long durationSeconds;
+    }
+}
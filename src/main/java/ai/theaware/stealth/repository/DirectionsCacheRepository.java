@@ -0,0 +1,18 @@
+package ai.theaware.stealth.repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.annotation.Transactional;
+
+import ai.theaware.stealth.entity.DirectionsCacheEntry;
+
+public interface DirectionsCacheRepository extends JpaRepository<DirectionsCacheEntry, String> {
+
+    Optional<DirectionsCacheEntry> findByCacheKeyAndExpiresAtAfter(String cacheKey, LocalDateTime now);
+
+    // Derived delete removes entity by entity so the alternatives collection goes with it
+    @Transactional
+    long deleteByExpiresAtBefore(LocalDateTime now);
+}
@@ -0,0 +1,99 @@
+package ai.theaware.stealth.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import ai.theaware.stealth.config.SnappedRouteKeyGenerator;
+import ai.theaware.stealth.dto.CacheStatsDTO;
+import ai.theaware.stealth.dto.RouteCacheKey;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Statistics and targeted invalidation for the route caches, behind
+ * {@code /internal/cache}. Evictions go through the Spring cache so an
+ * analysis eviction also drops its recommendation.
+ */
+@Service
+@Slf4j
+public class CacheAdminService {
+
+    private final CacheManager cacheManager;
+    private final SnappedRouteKeyGenerator keyGenerator;
+
+    public CacheAdminService(CacheManager cacheManager, SnappedRouteKeyGenerator keyGenerator) {
+        this.cacheManager = cacheManager;
+        this.keyGenerator = keyGenerator;
+    }
+
+    public List<CacheStatsDTO> stats() {
+        List<CacheStatsDTO> stats = new ArrayList<>();
+        for (String name : cacheManager.getCacheNames()) {
+            stats(name).ifPresent(stats::add);
+        }
+        return stats;
+    }
+
+    public Optional<CacheStatsDTO> stats(String name) {
+        return nativeCache(name).map(cache -> {
+            CacheStats s = cache.stats();
+            Optional<Policy.Eviction<Object, Object>> eviction = cache.policy().eviction();
+            return new CacheStatsDTO(
+                    name,
+                    cache.estimatedSize(),
+                    eviction.map(e -> e.weightedSize().orElse(0L)).orElse(0L),
+                    eviction.map(Policy.Eviction::getMaximum).orElse(0L),
+                    s.hitRate(),
+                    s.hitCount(),
+                    s.missCount(),
+                    s.loadSuccessCount(),
+                    s.loadFailureCount(),
+                    s.averageLoadPenalty() / 1_000_000.0,
+                    s.evictionCount(),
+                    s.evictionWeight());
+        });
+    }
+
+    /** Drops every entry of one cache. @return false for an unknown cache */
+    public boolean invalidate(String name) {
+        Cache cache = cacheManager.getCache(name);
+        if (cache == null) return false;
+        cache.invalidate();
+        log.info("[CACHE] Invalidated {}", name);
+        return true;
+    }
+
+    /**
+     * Drops the entry for one origin/destination pair, snapped like a route
+     * request, from one cache or, with {@code name == null}, from all of them.
+     *
+     * @return cache name → whether an entry was present; empty for an unknown cache
+     */
+    public Map<String, Boolean> invalidate(String name, double sLat, double sLon, double dLat, double dLon) {
+        RouteCacheKey key = RouteCacheKey.snap(sLat, sLon, dLat, dLon, keyGenerator.getActiveCellMeters());
+        Map<String, Boolean> evicted = new LinkedHashMap<>();
+        for (String cacheName : name == null ? cacheManager.getCacheNames() : List.of(name)) {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache != null) evicted.put(cacheName, cache.evictIfPresent(key));
+        }
+        log.info("[CACHE] Evicted {} from {}", key, evicted);
+        return evicted;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Optional<com.github.benmanes.caffeine.cache.Cache<Object, Object>> nativeCache(String name) {
+        Cache cache = cacheManager.getCache(name);
+        return cache != null && cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> c
+                ? Optional.of((com.github.benmanes.caffeine.cache.Cache<Object, Object>) c)
+                : Optional.empty();
+    }
+}
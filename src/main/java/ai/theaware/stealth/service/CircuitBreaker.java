@@ -0,0 +1,156 @@
+package ai.theaware.stealth.service;
+
+import java.time.Duration;
+import java.util.function.BiConsumer;
+
+/**
+ * Count-based circuit breaker for one downstream dependency.
+ *
+ *   CLOSED    – calls pass; the outcomes of the last {@code window} calls are
+ *               kept, and once at least {@code minimumCalls} are in and the
+ *               failure rate reaches the threshold the breaker opens
+ *   OPEN      – calls are refused without reaching the dependency until
+ *               {@code openDuration} has passed
+ *   HALF_OPEN – up to {@code halfOpenCalls} probes pass; all succeeding
+ *               closes the breaker, any failure opens it again
+ *
+ * Outcomes that say nothing about the dependency's health (a cancelled hedge,
+ * a 4xx) are released instead of recorded. All methods are synchronized; a
+ * breaker sees one permit and one outcome per call, far below contention.
+ */
+public final class CircuitBreaker {
+
+    public enum State { CLOSED, HALF_OPEN, OPEN }
+
+    /**
+     * @param window               calls whose outcomes decide the failure rate
+     * @param minimumCalls         calls needed in the window before the breaker may open
+     * @param failureRateThreshold failure rate in (0, 1] that opens the breaker
+     * @param openDuration         how long calls are refused before probing
+     * @param halfOpenCalls        probes that must succeed to close again
+     */
+    public record Settings(int window, int minimumCalls, double failureRateThreshold,
+                           Duration openDuration, int halfOpenCalls) {
+
+        public Settings {
+            if (window < 1 || minimumCalls < 1 || minimumCalls > window) {
+                throw new IllegalArgumentException(
+                        "Breaker minimum calls " + minimumCalls + " must be in [1, window " + window + "]");
+            }
+            if (!(failureRateThreshold > 0.0 && failureRateThreshold <= 1.0)) {
+                throw new IllegalArgumentException("Breaker failure rate must be in (0, 1]: " + failureRateThreshold);
+            }
+            if (openDuration.isNegative() || openDuration.isZero()) {
+                throw new IllegalArgumentException("Breaker open duration must be positive: " + openDuration);
+            }
+            if (halfOpenCalls < 1) {
+                throw new IllegalArgumentException("Breaker half-open calls must be at least 1: " + halfOpenCalls);
+            }
+        }
+    }
+
+    private final Settings settings;
+    private final BiConsumer<State, State> onTransition;
+
+    // Ring of the last outcomes while closed; true = failure
+    private final boolean[] outcomes;
+    private int next;
+    private int recorded;
+    private int failures;
+
+    private State state = State.CLOSED;
+    private long openedAtNanos;
+    private int probesIssued;
+    private int probesSucceeded;
+
+    CircuitBreaker(Settings settings, BiConsumer<State, State> onTransition) {
+        this.settings = settings;
+        this.onTransition = onTransition;
+        this.outcomes = new boolean[settings.window()];
+    }
+
+    /** Current state; an open breaker whose wait is over reports half-open. */
+    synchronized State state() {
+        if (state == State.OPEN && System.nanoTime() - openedAtNanos >= settings.openDuration().toNanos()) {
+            transition(State.HALF_OPEN);
+        }
+        return state;
+    }
+
+    /** True if a call may go ahead; every granted permit must end in exactly one of the three calls below. */
+    synchronized boolean tryAcquire() {
+        return switch (state()) {
+            case CLOSED -> true;
+            case OPEN -> false;
+            case HALF_OPEN -> {
+                if (probesIssued >= settings.halfOpenCalls()) yield false;
+                probesIssued++;
+                yield true;
+            }
+        };
+    }
+
+    synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++probesSucceeded >= settings.halfOpenCalls()) {
+                transition(State.CLOSED);
+            }
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            transition(State.OPEN);
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (recorded >= settings.minimumCalls()
+                    && failures >= settings.failureRateThreshold() * recorded) {
+                transition(State.OPEN);
+            }
+        }
+    }
+
+    /** The call ended without a verdict on the dependency; a half-open probe slot is freed. */
+    synchronized void release() {
+        if (state == State.HALF_OPEN && probesIssued > probesSucceeded) {
+            probesIssued--;
+        }
+    }
+
+    /** Failure rate over the current window, 0 when nothing is recorded. */
+    synchronized double failureRate() {
+        return recorded == 0 ? 0.0 : (double) failures / recorded;
+    }
+
+    private void record(boolean failure) {
+        if (recorded == outcomes.length) {
+            if (outcomes[next]) failures--;
+        } else {
+            recorded++;
+        }
+        outcomes[next] = failure;
+        if (failure) failures++;
+        next = (next + 1) % outcomes.length;
+    }
+
+    private void transition(State to) {
+        State from = state;
+        if (from == to) return;
+        state = to;
+        switch (to) {
+            case OPEN -> openedAtNanos = System.nanoTime();
+            case HALF_OPEN -> {
+                probesIssued = 0;
+                probesSucceeded = 0;
+            }
+            case CLOSED -> {
+                next = 0;
+                recorded = 0;
+                failures = 0;
+            }
+        }
+        onTransition.accept(from, to);
+    }
+}
@@ -0,0 +1,58 @@
+package ai.theaware.stealth.service;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * The end-to-end deadline of the route request the current thread works for.
+ *
+ * Set by {@link GoogleRoutingService} around each pipeline stage, on whatever
+ * thread runs it, and read by the calls that leave the process: the AI
+ * service's HTTP client turns it into a per-request response timeout and
+ * {@link DependencyGuard} clamps each dependency's adaptive timeout to it.
+ * Nested scopes can only shorten it.
+ */
+public final class Deadline {
+
+    private static final ThreadLocal<Instant> CURRENT = new ThreadLocal<>();
+
+    private Deadline() {
+        // Utility class
+    }
+
+    /**
+     * Runs the call with {@code deadline} in effect, or the current one if
+     * that is earlier. A {@code null} deadline leaves the current one as is.
+     */
+    public static <V, E extends Exception> V within(Instant deadline, SingleFlight.Call<V, E> call) throws E {
+        if (deadline == null) return call.call();
+        Instant outer = CURRENT.get();
+        CURRENT.set(outer != null && outer.isBefore(deadline) ? outer : deadline);
+        try {
+            return call.call();
+        } finally {
+            if (outer != null) {
+                CURRENT.set(outer);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    /** The deadline in effect, or {@code null} outside any scope. */
+    public static Instant current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Time left before the deadline, capped at {@code max}; zero once it has
+     * passed. Returns {@code max} outside any scope.
+     */
+    public static Duration remaining(Duration max) {
+        Instant deadline = CURRENT.get();
+        if (deadline == null) return max;
+        Duration left = Duration.between(Instant.now(), deadline);
+        if (left.isNegative()) return Duration.ZERO;
+        return left.compareTo(max) < 0 ? left : max;
+    }
+}
@@ -0,0 +1,370 @@
+package ai.theaware.stealth.service;
+
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+
+import com.google.maps.errors.InvalidRequestException;
+import com.google.maps.errors.NotFoundException;
+import com.google.maps.errors.RequestDeniedException;
+import com.google.maps.errors.ZeroResultsException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Circuit breaker, adaptive timeout and optional hedging around each call
+ * that leaves the process: Google Directions, AI analyze-routes and AI
+ * predict.
+ *
+ * Each call runs under a timeout learned from the dependency's recent
+ * latency (smoothed mean + 4 × mean deviation, as TCP does for its
+ * retransmission timer), kept within the policy's bounds and clamped to the
+ * request {@link Deadline}. A call that times out on the learned value backs
+ * the timeout off, so a dependency that got slower is not cut off for good.
+ * The timeout is handed to the call as a {@link Deadline}; the HTTP clients
+ * turn that into their socket timeouts.
+ *
+ * Hedging, when a policy enables it, sends a second attempt if the first has
+ * not answered within about the dependency's p95 latency and returns
+ * whichever answers first; the other is cancelled. Hedges are limited to a
+ * share of calls ({@code max-ratio}) so a slow dependency never sees twice
+ * the load. Only use it for idempotent calls.
+ *
+ *   route.dependency.calls{dependency, outcome="success|failure|ignored|rejected|deadline"}
+ *   route.dependency.breaker.state{dependency}   0 closed, 1 half-open, 2 open
+ *   route.dependency.timeout{dependency}         current adaptive timeout, seconds
+ *   route.dependency.hedges{dependency, result="sent|won"}
+ */
+@Slf4j
+public class DependencyGuard {
+
+    public static final String GOOGLE = "google";
+    public static final String AI_ANALYSIS = "ai_analysis";
+    public static final String PREDICT = "predict";
+
+    /** Hedge credit is kept in thousandths of a hedge, with at most this many hedges banked. */
+    private static final long HEDGE_BURST = 10;
+
+    /**
+     * @param breaker    circuit breaker settings
+     * @param minTimeout the adaptive timeout never goes below this
+     * @param maxTimeout nor above this; also the timeout before any latency is known
+     * @param hedge      send a second attempt when the first is slow
+     */
+    public record Policy(CircuitBreaker.Settings breaker, Duration minTimeout, Duration maxTimeout, boolean hedge) {
+
+        public Policy {
+            if (minTimeout.isNegative() || minTimeout.isZero() || maxTimeout.compareTo(minTimeout) < 0) {
+                throw new IllegalArgumentException(
+                        "Timeout bounds must satisfy 0 < min <= max, got " + minTimeout + " / " + maxTimeout);
+            }
+        }
+    }
+
+    private final Map<String, Dependency> dependencies;
+    private final ExecutorService attemptExecutor;
+    private final long hedgeCreditPerCall;
+    private final Duration hedgeMinDelay;
+
+    /**
+     * @param attemptExecutor runs the attempts of hedged calls; unhedged calls run on the caller
+     * @param hedgeMaxRatio   hedges allowed per call, on average
+     * @param hedgeMinDelay   a hedge is never sent sooner than this
+     */
+    public DependencyGuard(Map<String, Policy> policies, ExecutorService attemptExecutor,
+                           double hedgeMaxRatio, Duration hedgeMinDelay, MeterRegistry meterRegistry) {
+        if (!(hedgeMaxRatio >= 0.0 && hedgeMaxRatio <= 1.0)) {
+            throw new IllegalArgumentException("Hedge max ratio must be in [0, 1]: " + hedgeMaxRatio);
+        }
+        this.attemptExecutor = attemptExecutor;
+        this.hedgeCreditPerCall = Math.round(hedgeMaxRatio * 1000);
+        this.hedgeMinDelay = hedgeMinDelay;
+        this.dependencies = policies.entrySet().stream().collect(Collectors.toUnmodifiableMap(
+                Map.Entry::getKey, e -> new Dependency(e.getKey(), e.getValue(), meterRegistry)));
+    }
+
+    /**
+     * Runs {@code call} against the named dependency.
+     *
+     * @throws DependencyUnavailableException when the breaker is open or the
+     *         request deadline has passed; the call was not made
+     */
+    public <V, E extends Exception> V call(String dependency, SingleFlight.Call<V, E> call) throws E {
+        Dependency target = dependencies.get(dependency);
+        if (target == null) {
+            throw new IllegalArgumentException("No resilience policy for dependency " + dependency);
+        }
+        if (!target.policy.hedge()) {
+            return target.attempt(call);
+        }
+        return hedged(target, call);
+    }
+
+    /** Breaker state of the named dependency. */
+    public CircuitBreaker.State state(String dependency) {
+        Dependency target = dependencies.get(dependency);
+        return target != null ? target.breaker.state() : CircuitBreaker.State.CLOSED;
+    }
+
+    // -------------------------------------------------------------------------
+    // Hedging
+    // -------------------------------------------------------------------------
+
+    @SuppressWarnings("unchecked")
+    private <V, E extends Exception> V hedged(Dependency target, SingleFlight.Call<V, E> call) throws E {
+        target.depositHedgeCredit();
+        Instant deadline = Deadline.current();
+        CompletableFuture<V> winner = new CompletableFuture<>();
+        AtomicInteger launched = new AtomicInteger(1);
+        AtomicInteger failed = new AtomicInteger();
+        AtomicReference<Throwable> firstError = new AtomicReference<>();
+
+        Future<?> primary = submit(target, call, deadline, winner, launched, failed, firstError, false);
+        Future<?> hedge = null;
+        try {
+            try {
+                return winner.get(target.hedgeDelay(hedgeMinDelay).toMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException slow) {
+                launched.incrementAndGet();
+                if (!winner.isDone() && target.tryWithdrawHedgeCredit()) {
+                    target.hedgesSent.increment();
+                    log.debug("[HEDGE] {} slower than {}, sending a second attempt",
+                            target.name, target.hedgeDelay(hedgeMinDelay));
+                    hedge = submit(target, call, deadline, winner, launched, failed, firstError, true);
+                } else {
+                    launched.decrementAndGet();
+                    if (failed.get() >= launched.get()) winner.completeExceptionally(firstError.get());
+                }
+            }
+            // Every attempt runs under a timeout, so this wait is bounded too
+            return winner.get();
+
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) throw runtime;
+            if (cause instanceof Error error) throw error;
+            throw (E) cause;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException(target.name + " call interrupted");
+
+        } finally {
+            // The slower attempt is abandoned; no-ops for attempts that finished
+            primary.cancel(true);
+            if (hedge != null) hedge.cancel(true);
+        }
+    }
+
+    private <V, E extends Exception> Future<?> submit(Dependency target, SingleFlight.Call<V, E> call,
+                                                      Instant deadline, CompletableFuture<V> winner,
+                                                      AtomicInteger launched, AtomicInteger failed,
+                                                      AtomicReference<Throwable> firstError, boolean isHedge) {
+        Runnable attempt = () -> {
+            try {
+                V value = Deadline.within(deadline, () -> target.attempt(call));
+                if (winner.complete(value) && isHedge) target.hedgesWon.increment();
+            } catch (Throwable t) {
+                firstError.compareAndSet(null, t);
+                if (failed.incrementAndGet() >= launched.get()) {
+                    winner.completeExceptionally(firstError.get());
+                }
+            }
+        };
+        try {
+            return attemptExecutor.submit(attempt);
+        } catch (RejectedExecutionException e) {
+            firstError.compareAndSet(null, e);
+            if (failed.incrementAndGet() >= launched.get()) winner.completeExceptionally(firstError.get());
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Per-dependency state
+    // -------------------------------------------------------------------------
+
+    private final class Dependency {
+
+        private final String name;
+        private final Policy policy;
+        private final CircuitBreaker breaker;
+        private final AtomicLong hedgeCredit = new AtomicLong();
+        private final Counter succeeded;
+        private final Counter failures;
+        private final Counter ignored;
+        private final Counter rejected;
+        private final Counter deadlineExceeded;
+        private final Counter hedgesSent;
+        private final Counter hedgesWon;
+
+        // Smoothed latency and mean deviation in nanos, 0 until the first sample
+        private long smoothedNanos;
+        private long deviationNanos;
+
+        Dependency(String name, Policy policy, MeterRegistry meterRegistry) {
+            this.name = name;
+            this.policy = policy;
+            this.breaker = new CircuitBreaker(policy.breaker(), (from, to) -> {
+                if (to == CircuitBreaker.State.OPEN) {
+                    log.warn("[BREAKER] {} {} -> OPEN, calls refused for {}", name, from, policy.breaker().openDuration());
+                } else {
+                    log.info("[BREAKER] {} {} -> {}", name, from, to);
+                }
+            });
+
+            this.succeeded = callCounter(meterRegistry, "success");
+            this.failures = callCounter(meterRegistry, "failure");
+            this.ignored = callCounter(meterRegistry, "ignored");
+            this.rejected = callCounter(meterRegistry, "rejected");
+            this.deadlineExceeded = callCounter(meterRegistry, "deadline");
+            this.hedgesSent = hedgeCounter(meterRegistry, "sent");
+            this.hedgesWon = hedgeCounter(meterRegistry, "won");
+
+            Gauge.builder("route.dependency.breaker.state", breaker, b -> b.state().ordinal())
+                    .description("Circuit breaker state: 0 closed, 1 half-open, 2 open")
+                    .tag("dependency", name)
+                    .register(meterRegistry);
+            Gauge.builder("route.dependency.timeout", this, d -> d.timeout().toNanos() / 1e9)
+                    .description("Adaptive timeout for the next call")
+                    .tag("dependency", name)
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+        }
+
+        private Counter callCounter(MeterRegistry meterRegistry, String outcome) {
+            return Counter.builder("route.dependency.calls")
+                    .description("Calls to external dependencies by outcome")
+                    .tags("dependency", name, "outcome", outcome)
+                    .register(meterRegistry);
+        }
+
+        private Counter hedgeCounter(MeterRegistry meterRegistry, String result) {
+            return Counter.builder("route.dependency.hedges")
+                    .description("Second attempts sent for slow calls, and how many answered first")
+                    .tags("dependency", name, "result", result)
+                    .register(meterRegistry);
+        }
+
+        /** One attempt on the calling thread, under the adaptive timeout. */
+        <V, E extends Exception> V attempt(SingleFlight.Call<V, E> call) throws E {
+            Duration adaptive = timeout();
+            Duration budget = Deadline.remaining(adaptive);
+            if (budget.isZero()) {
+                deadlineExceeded.increment();
+                throw new DependencyUnavailableException(name, "request deadline passed");
+            }
+            if (!breaker.tryAcquire()) {
+                rejected.increment();
+                throw new DependencyUnavailableException(name, "circuit breaker open");
+            }
+
+            // Cut short by the request deadline: a timeout then says nothing about the dependency
+            boolean clamped = budget.compareTo(adaptive) < 0;
+            long start = System.nanoTime();
+            try {
+                V value = Deadline.within(Instant.now().plus(budget), call);
+                breaker.onSuccess();
+                succeeded.increment();
+                sample(System.nanoTime() - start);
+                return value;
+            } catch (Throwable t) {
+                if (isFailure(t, clamped)) {
+                    breaker.onFailure();
+                    failures.increment();
+                    if (isTimeout(t)) backOff(budget);
+                } else {
+                    breaker.release();
+                    ignored.increment();
+                }
+                throw t;
+            }
+        }
+
+        /** Whether the outcome counts against the dependency's health. */
+        private static boolean isFailure(Throwable t, boolean clamped) {
+            if (t instanceof InterruptedException || t instanceof CancellationException
+                    || Thread.currentThread().isInterrupted()) {
+                return false; // cancelled: a hedge lost or the request gave up
+            }
+            if (t instanceof HttpClientErrorException http && http.getStatusCode() != HttpStatus.TOO_MANY_REQUESTS) {
+                return false; // the request was bad, the service answered
+            }
+            if (t instanceof InvalidRequestException || t instanceof NotFoundException
+                    || t instanceof ZeroResultsException || t instanceof RequestDeniedException) {
+                return false;
+            }
+            return !(clamped && isTimeout(t));
+        }
+
+        private static boolean isTimeout(Throwable t) {
+            for (Throwable cause = t; cause != null; cause = cause.getCause()) {
+                if (cause instanceof InterruptedIOException || cause instanceof TimeoutException) return true;
+            }
+            return false;
+        }
+
+        synchronized Duration timeout() {
+            long nanos = smoothedNanos == 0
+                    ? policy.maxTimeout().toNanos()
+                    : smoothedNanos + 4 * deviationNanos;
+            long clamped = Math.clamp(nanos, policy.minTimeout().toNanos(), policy.maxTimeout().toNanos());
+            return Duration.ofNanos(clamped);
+        }
+
+        /** About the p95 latency: smoothed mean + 2 × deviation. */
+        synchronized Duration hedgeDelay(Duration floor) {
+            if (smoothedNanos == 0) return timeout();
+            long nanos = Math.max(floor.toNanos(), smoothedNanos + 2 * deviationNanos);
+            return Duration.ofNanos(Math.min(nanos, timeout().toNanos()));
+        }
+
+        /** RFC 6298 smoothing with alpha 1/8, beta 1/4. */
+        private synchronized void sample(long nanos) {
+            if (smoothedNanos == 0) {
+                smoothedNanos = Math.max(1, nanos);
+                deviationNanos = nanos / 2;
+            } else {
+                deviationNanos += (Math.abs(smoothedNanos - nanos) - deviationNanos) / 4;
+                smoothedNanos += (nanos - smoothedNanos) / 8;
+            }
+        }
+
+        /** A timeout on the learned value: treat it as a sample of twice that, as TCP doubles its timer. */
+        private void backOff(Duration timedOut) {
+            sample(Math.min(2 * timedOut.toNanos(), policy.maxTimeout().toNanos()));
+        }
+
+        void depositHedgeCredit() {
+            hedgeCredit.accumulateAndGet(0, (credit, unused) -> Math.min(HEDGE_BURST * 1000, credit + hedgeCreditPerCall));
+        }
+
+        boolean tryWithdrawHedgeCredit() {
+            long credit;
+            do {
+                credit = hedgeCredit.get();
+                if (credit < 1000) return false;
+            } while (!hedgeCredit.compareAndSet(credit, credit - 1000));
+            return true;
+        }
+    }
+}
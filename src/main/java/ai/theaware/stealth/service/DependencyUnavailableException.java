@@ -0,0 +1,21 @@
+package ai.theaware.stealth.service;
+
+/**
+ * A dependency call that {@link DependencyGuard} refused to make: the
+ * dependency's circuit breaker is open, or the request deadline has already
+ * passed. Nothing was sent. {@link SingleFlight} also throws it to a caller
+ * whose deadline passed while it waited on another request's call.
+ */
+public class DependencyUnavailableException extends RuntimeException {
+
+    private final String dependency;
+
+    public DependencyUnavailableException(String dependency, String reason) {
+        super(dependency + " unavailable: " + reason);
+        this.dependency = dependency;
+    }
+
+    public String getDependency() {
+        return dependency;
+    }
+}
@@ -0,0 +1,115 @@
+package ai.theaware.stealth.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import ai.theaware.stealth.dto.RouteCacheKey;
+import ai.theaware.stealth.dto.RouteDirections;
+import ai.theaware.stealth.entity.DirectionsCacheEntry;
+import ai.theaware.stealth.repository.DirectionsCacheRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Postgres-backed second level of the Directions cache, consulted by
+ * {@link DirectionsService} on a Caffeine miss before going to Google.
+ *
+ * Database errors are logged and treated as a miss: the L2 only saves quota,
+ * it must never fail a route request.
+ */
+@Service
+@Slf4j
+public class DirectionsCacheStore {
+
+    private final DirectionsCacheRepository repository;
+    private final Duration ttl;
+    private final StageMetrics stageMetrics;
+
+    public DirectionsCacheStore(
+            DirectionsCacheRepository repository,
+            @Value("${app.cache.directions.persistent-ttl:24h}") Duration ttl,
+            StageMetrics stageMetrics
+    ) {
+        this.repository = repository;
+        this.ttl = ttl;
+        this.stageMetrics = stageMetrics;
+    }
+
+    public Optional<List<RouteDirections.Alternative>> find(RouteCacheKey key) {
+        try {
+            return stageMetrics.record("directions_store_get",
+                    () -> repository.findByCacheKeyAndExpiresAtAfter(key.id(), LocalDateTime.now()))
+                    .map(DirectionsCacheStore::toAlternatives);
+        } catch (DataAccessException e) {
+            log.warn("[L2 CACHE] Lookup failed for {}: {}", key, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    public void save(RouteCacheKey key, List<RouteDirections.Alternative> alternatives) {
+        if (alternatives.isEmpty()) return;
+
+        LocalDateTime now = LocalDateTime.now();
+        DirectionsCacheEntry entry = new DirectionsCacheEntry();
+        entry.setCacheKey(key.id());
+        entry.setCreatedAt(now);
+        entry.setExpiresAt(now.plus(ttl));
+        for (RouteDirections.Alternative alternative : alternatives) {
+            entry.getAlternatives().add(toEmbeddable(alternative));
+        }
+
+        try {
+            stageMetrics.record("directions_store_put", () -> repository.save(entry));
+        } catch (DataAccessException e) {
+            log.warn("[L2 CACHE] Save failed for {}: {}", key, e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.cache.directions.purge-interval:1h}",
+               initialDelayString = "${app.cache.directions.purge-interval:1h}")
+    public void purgeExpired() {
+        try {
+            long removed = repository.deleteByExpiresAtBefore(LocalDateTime.now());
+            if (removed > 0) {
+                log.info("[L2 CACHE] Purged {} expired Directions entries", removed);
+            }
+        } catch (DataAccessException e) {
+            log.warn("[L2 CACHE] Purge failed: {}", e.getMessage());
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Mapping
+    // -------------------------------------------------------------------------
+
+    private static List<RouteDirections.Alternative> toAlternatives(DirectionsCacheEntry entry) {
+        List<RouteDirections.Alternative> alternatives = new ArrayList<>(entry.getAlternatives().size());
+        for (DirectionsCacheEntry.Alternative row : entry.getAlternatives()) {
+            alternatives.add(new RouteDirections.Alternative(
+                    row.getEncodedPolyline(),
+                    row.getDistanceText(),
+                    row.getDistanceMeters(),
+                    row.getDurationText(),
+                    row.getDurationSeconds()
+            ));
+        }
+        return alternatives;
+    }
+
+    private static DirectionsCacheEntry.Alternative toEmbeddable(RouteDirections.Alternative alternative) {
+        DirectionsCacheEntry.Alternative row = new DirectionsCacheEntry.Alternative();
+        row.setEncodedPolyline(alternative.encodedPolyline());
+        row.setDistanceText(alternative.distanceText());
+        row.setDistanceMeters(alternative.distanceMeters());
+        row.setDurationText(alternative.durationText());
+        row.setDurationSeconds(alternative.durationSeconds());
+        return row;
+    }
+}
@@ -0,0 +1,174 @@
+package ai.theaware.stealth.service;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+import com.google.maps.DirectionsApi;
+import com.google.maps.DirectionsApiRequest;
+import com.google.maps.GeoApiContext;
+import com.google.maps.PendingResult;
+import com.google.maps.errors.ApiException;
+import com.google.maps.errors.ZeroResultsException;
+import com.google.maps.model.DirectionsResult;
+import com.google.maps.model.LatLng;
+
+import ai.theaware.stealth.dto.PackedPolyline;
+import ai.theaware.stealth.dto.RouteCacheKey;
+import ai.theaware.stealth.dto.RouteDirections;
+import ai.theaware.stealth.dto.RouteResponseDTO;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Stage 1 of the route pipeline: Google Directions, cached per snapped
+ * origin/destination cell pair.
+ *
+ * Reads go Caffeine ({@code route_directions}) → Postgres
+ * ({@link DirectionsCacheStore}) → Google, so a restart or a new node warms
+ * up from the shared table instead of spending Directions quota. Google calls
+ * are admitted by {@link GoogleQuota}, then go through {@link DependencyGuard}
+ * ({@code google}).
+ */
+@Service
+@Slf4j
+public class DirectionsService {
+
+    private static final double INTERVAL_METERS = 1000.0;
+    /** Outside a guarded call; the guard always sets a shorter deadline. */
+    private static final Duration MAX_WAIT = Duration.ofSeconds(60);
+
+    private final GeoApiContext geoApiContext;
+    private final DirectionsCacheStore persistentCache;
+    private final StageMetrics stageMetrics;
+    private final DependencyGuard dependencies;
+    private final GoogleQuota quota;
+
+    public DirectionsService(GeoApiContext geoApiContext, DirectionsCacheStore persistentCache,
+                             StageMetrics stageMetrics, DependencyGuard dependencies, GoogleQuota quota) {
+        this.geoApiContext = geoApiContext;
+        this.persistentCache = persistentCache;
+        this.stageMetrics = stageMetrics;
+        this.dependencies = dependencies;
+        this.quota = quota;
+    }
+
+    /**
+     * Returns the alternatives between the two points. The first caller in a
+     * cell pair decides the exact coordinates sent to Google; later callers in
+     * the same cells reuse that result until the entry expires.
+     */
+    @Cacheable(value = "route_directions", key = "#key", sync = true)
+    public RouteDirections fetch(RouteCacheKey key, double sLat, double sLon, double dLat, double dLon)
+            throws ApiException, InterruptedException, IOException {
+        Optional<List<RouteDirections.Alternative>> stored = persistentCache.find(key);
+        if (stored.isPresent()) {
+            log.info("[L2 CACHE HIT] Directions for {}", key);
+            RouteStageEvent.markCache("l2_hit");
+            return toRouteDirections(stored.get());
+        }
+
+        log.info("[CACHE MISS] Directions for {}", key);
+        RouteStageEvent.markCache("miss");
+        DirectionsResult result = fetchDirectionsFromGoogle(sLat, sLon, dLat, dLon);
+        List<RouteDirections.Alternative> alternatives = RouteDirections.alternativesOf(result);
+        persistentCache.save(key, alternatives);
+        return toRouteDirections(alternatives);
+    }
+
+    /** Builds the cached model, resampling each alternative once. */
+    RouteDirections toRouteDirections(List<RouteDirections.Alternative> alternatives) {
+        List<RouteResponseDTO.RouteDetail> routesList = new ArrayList<>(alternatives.size());
+        PackedPolyline.Builder buffer = new PackedPolyline.Builder(64);
+
+        for (RouteDirections.Alternative route : alternatives) {
+            PackedPolyline rawCoords = PackedPolyline.decode(route.encodedPolyline());
+            PolylineResampler.resample(rawCoords, INTERVAL_METERS, buffer);
+
+            routesList.add(new RouteResponseDTO.RouteDetail(
+                    route.distanceText(),
+                    route.distanceMeters(),
+                    route.durationText(),
+                    buffer.build()
+            ));
+        }
+        return new RouteDirections(alternatives, new RouteResponseDTO(routesList.size(), routesList));
+    }
+
+    private DirectionsResult fetchDirectionsFromGoogle(double sLat, double sLon, double dLat, double dLon)
+            throws ApiException, InterruptedException, IOException {
+        GoogleQuota.Grant grant = quota.acquire();
+        AtomicBoolean sent = new AtomicBoolean();
+        try {
+            return stageMetrics.record("directions", () -> dependencies.call(DependencyGuard.GOOGLE, () -> {
+                sent.set(true);
+                return awaitDirections(sLat, sLon, dLat, dLon);
+            }));
+        } catch (DependencyUnavailableException e) {
+            // Breaker open or no time left: the guard refused before anything went to Google
+            if (!sent.get()) grant.refund();
+            throw e;
+        } catch (ApiException | IOException | InterruptedException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            // await declares nothing else; only reachable if that signature changes
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Sends the request asynchronously and waits until the {@link Deadline}
+     * set by {@link DependencyGuard}; a request still running then is
+     * cancelled rather than left to the client's own retry timeout.
+     */
+    private DirectionsResult awaitDirections(double sLat, double sLon, double dLat, double dLon)
+            throws ApiException, InterruptedException, IOException {
+        DirectionsApiRequest request = DirectionsApi.newRequest(geoApiContext)
+                .origin(new LatLng(sLat, sLon))
+                .destination(new LatLng(dLat, dLon))
+                .alternatives(true);
+        CompletableFuture<DirectionsResult> result = new CompletableFuture<>();
+        request.setCallback(new PendingResult.Callback<>() {
+            @Override
+            public void onResult(DirectionsResult directions) {
+                result.complete(directions);
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+
+        Duration timeout = Deadline.remaining(MAX_WAIT);
+        try {
+            DirectionsResult directions = result.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            quota.recordBilled(directions.routes.length);
+            return directions;
+        } catch (TimeoutException e) {
+            request.cancel();
+            throw new SocketTimeoutException("Directions request exceeded " + timeout);
+        } catch (InterruptedException e) {
+            request.cancel();
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            // Google bills an answer with no route like any other
+            if (cause instanceof ZeroResultsException) quota.recordBilled(0);
+            if (cause instanceof ApiException api) throw api;
+            if (cause instanceof IOException io) throw io;
+            if (cause instanceof RuntimeException runtime) throw runtime;
+            throw new IOException("Directions request failed", cause);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package ai.theaware.stealth.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Primitive reductions behind route exposure and dose, over per-point
+ * {@code double[]} columns.
+ *
+ * Two implementations: {@link VectorExposureKernel} on
+ * {@code jdk.incubator.vector} when the JVM was started with
+ * {@code --add-modules jdk.incubator.vector} and has SIMD registers wider
+ * than one double, and {@link ScalarExposureKernel} otherwise. Use
+ * {@link #INSTANCE}; the choice is made once at class load.
+ */
+interface ExposureKernel {
+
+    double AQI_MAX = 300.0;
+
+    ExposureKernel INSTANCE = Selector.select();
+
+    /** Σ (AQI/300)² over all points. */
+    double risk(double[] aqi);
+
+    /** Σ values. */
+    double sum(double[] values);
+
+    /** Σ (AQI/300)² · t / n: each point stands for an equal share of the route's minutes. */
+    default double exposure(double[] aqi, double minutes) {
+        return risk(aqi) * (minutes / Math.max(1, aqi.length));
+    }
+
+    /** Arithmetic mean, 0 for no points. */
+    default double mean(double[] values) {
+        return values.length == 0 ? 0.0 : sum(values) / values.length;
+    }
+
+    /** Implementation name for logs and benchmarks. */
+    String name();
+
+    @Slf4j
+    final class Selector {
+
+        private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+        private Selector() {
+            // Utility class
+        }
+
+        static ExposureKernel select() {
+            ExposureKernel kernel = ScalarExposureKernel.INSTANCE;
+            if (ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+                try {
+                    // Loaded reflectively so this class never links against the incubator module
+                    Class<?> vector = Class.forName("ai.theaware.stealth.service.VectorExposureKernel");
+                    if ((boolean) vector.getDeclaredMethod("isWorthwhile").invoke(null)) {
+                        kernel = (ExposureKernel) vector.getDeclaredConstructor().newInstance();
+                    }
+                } catch (ReflectiveOperationException | LinkageError e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    log.warn("[SCORING] Vector kernel unavailable, using scalar: {}", cause.toString());
+                }
+            }
+            log.info("[SCORING] Exposure kernel: {}", kernel.name());
+            return kernel;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package ai.theaware.stealth.service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import ai.theaware.stealth.config.RefreshingCacheManager;
+import ai.theaware.stealth.config.TimedCacheManager;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Ends the freshness of every route cache entry that was computed from
+ * station data, for when new readings land before the next forecast-hour
+ * boundary. Entries stay servable: each key is reloaded in the background
+ * on its next read (stale-while-revalidate), so nobody waits on the AI
+ * service because of an invalidation.
+ *
+ * Finished shared forecasts are dropped outright; the next request for that
+ * corridor starts a new one.
+ */
+@Service
+@Slf4j
+public class ForecastCacheInvalidator {
+
+    /** Caches whose values depend on AQI data; recommendations follow the analysis. */
+    static final List<String> FORECAST_CACHES = List.of("route_ai_analysis", "route_recommendations");
+
+    /** Key in the result for the shared forecasts dropped from {@link PredictionService}. */
+    static final String SHARED_FORECASTS = "prediction_forecasts";
+
+    private final RefreshingCacheManager cacheManager;
+    private final PredictionService predictionService;
+
+    public ForecastCacheInvalidator(CacheManager cacheManager, PredictionService predictionService) {
+        this.cacheManager = unwrap(cacheManager);
+        this.predictionService = predictionService;
+    }
+
+    /** @return cache name → entries marked stale, plus the shared forecasts dropped */
+    public Map<String, Integer> stationDataUpdated() {
+        Map<String, Integer> marked = new LinkedHashMap<>();
+        if (cacheManager == null) {
+            log.warn("[CACHE] No refreshing cache manager, route caches left as they are");
+        } else {
+            for (String name : FORECAST_CACHES) {
+                marked.put(name, cacheManager.markStale(name));
+            }
+        }
+        marked.put(SHARED_FORECASTS, predictionService.dropCompletedForecasts());
+        log.info("[CACHE] Station data updated, marked stale: {}", marked);
+        return marked;
+    }
+
+    private static RefreshingCacheManager unwrap(CacheManager manager) {
+        CacheManager current = manager;
+        while (true) {
+            if (current instanceof RefreshingCacheManager refreshing) return refreshing;
+            if (!(current instanceof TimedCacheManager timed)) return null;
+            current = timed.getDelegate();
+        }
+    }
+}
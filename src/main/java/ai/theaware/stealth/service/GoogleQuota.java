@@ -0,0 +1,283 @@
+package ai.theaware.stealth.service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Spending guard in front of Google Directions. Every call that would go to
+ * Google (a miss in both cache levels, or a refresh) first takes a token
+ * from the calling user's bucket and from the global one, see
+ * {@link TokenBucket}. Refresh-ahead reloads run outside any request and
+ * only take the global token.
+ *
+ * Billed calls are counted against a daily budget that resets at midnight
+ * in {@code app.google.quota.reset-zone} (Google's quota day is Pacific
+ * time). Once the share spent reaches {@code cache-only-at}, no further
+ * calls are made until the reset: routes are served from the Caffeine and
+ * Postgres caches only, including entries past their freshness (the
+ * stale-if-error window of {@code route_directions}), and a route nobody
+ * has asked for yet fails with {@link QuotaExceededException}.
+ *
+ * The user is taken from {@link #onBehalfOf}, set by
+ * {@link GoogleRoutingService} around each request like {@link Deadline}.
+ * A call coalesced by {@link SingleFlight} is charged to whichever request
+ * leads it; if that user is out of tokens, the waiters retry under their
+ * own buckets rather than share the refusal.
+ *
+ *   route.google.calls             billed calls
+ *   route.google.refused{scope="user|global|budget"}
+ *   route.google.elements          alternatives returned by billed calls
+ *   route.google.spend             estimated, in app.google.quota.currency
+ *   route.google.budget.used       share of today's budget spent
+ *   route.google.cache_only        1 while Google is not called
+ *   route.google.tokens{bucket="global"}
+ */
+@Service
+@Slf4j
+public class GoogleQuota {
+
+    private static final ThreadLocal<String> USER = new ThreadLocal<>();
+
+    private final boolean enabled;
+    private final TokenBucket global;
+    private final Cache<String, TokenBucket> users;
+    private final long userCapacity;
+    private final Duration userInterval;
+    private final long dailyBudget;
+    private final long cacheOnlyCalls;
+    private final double costPerCall;
+    private final ZoneId resetZone;
+    private final AtomicReference<Day> today;
+    private final MeterRegistry meterRegistry;
+
+    private final Counter billed;
+    private final Counter elements;
+    private final Counter spend;
+    private final Counter refusedUser;
+    private final Counter refusedGlobal;
+    private final Counter refusedBudget;
+
+    /** The tokens taken for one call, given back if the call is not made after all. */
+    public static final class Grant {
+
+        static final Grant NONE = new Grant(null, null);
+
+        private final TokenBucket user;
+        private final TokenBucket global;
+
+        private Grant(TokenBucket user, TokenBucket global) {
+            this.user = user;
+            this.global = global;
+        }
+
+        public void refund() {
+            if (user != null) user.refund();
+            if (global != null) global.refund();
+        }
+    }
+
+    /** Billed calls of one quota day; replaced, never reset, so no increment is lost at midnight. */
+    private record Day(LocalDate date, LongAdder calls, AtomicBoolean cacheOnlyLogged) {
+
+        Day(LocalDate date) {
+            this(date, new LongAdder(), new AtomicBoolean());
+        }
+    }
+
+    public GoogleQuota(
+            @Value("${app.google.quota.enabled:true}") boolean enabled,
+            @Value("${app.google.quota.global.capacity:100}") long globalCapacity,
+            @Value("${app.google.quota.global.per-minute:600}") long globalPerMinute,
+            @Value("${app.google.quota.user.capacity:20}") long userCapacity,
+            @Value("${app.google.quota.user.per-minute:5}") long userPerMinute,
+            @Value("${app.google.quota.user.max-tracked:100000}") long maxTrackedUsers,
+            @Value("${app.google.quota.daily-budget:20000}") long dailyBudget,
+            @Value("${app.google.quota.cache-only-at:0.95}") double cacheOnlyAt,
+            @Value("${app.google.quota.cost-per-call:0.005}") double costPerCall,
+            @Value("${app.google.quota.currency:usd}") String currency,
+            @Value("${app.google.quota.reset-zone:America/Los_Angeles}") ZoneId resetZone,
+            MeterRegistry meterRegistry
+    ) {
+        if (dailyBudget < 1) {
+            throw new IllegalArgumentException("Daily Google budget must be at least 1 call: " + dailyBudget);
+        }
+        if (!(cacheOnlyAt > 0.0 && cacheOnlyAt <= 1.0)) {
+            throw new IllegalArgumentException("cache-only-at must be in (0, 1]: " + cacheOnlyAt);
+        }
+        this.enabled = enabled;
+        this.global = new TokenBucket(globalCapacity, perToken(globalPerMinute));
+        this.userCapacity = userCapacity;
+        this.userInterval = perToken(userPerMinute);
+        // A bucket idle for its fill time is full again; dropping it loses nothing
+        this.users = Caffeine.newBuilder()
+                .expireAfterAccess(userInterval.multipliedBy(userCapacity))
+                .maximumSize(maxTrackedUsers)
+                .build();
+        this.dailyBudget = dailyBudget;
+        this.cacheOnlyCalls = (long) Math.ceil(dailyBudget * cacheOnlyAt);
+        this.costPerCall = costPerCall;
+        this.resetZone = resetZone;
+        this.today = new AtomicReference<>(new Day(LocalDate.now(resetZone)));
+        this.meterRegistry = meterRegistry;
+
+        this.billed = Counter.builder("route.google.calls")
+                .description("Google Directions calls billed")
+                .register(meterRegistry);
+        this.refusedUser = refusedCounter("user", meterRegistry);
+        this.refusedGlobal = refusedCounter("global", meterRegistry);
+        this.refusedBudget = refusedCounter("budget", meterRegistry);
+        this.elements = Counter.builder("route.google.elements")
+                .description("Route alternatives returned by billed Directions calls")
+                .register(meterRegistry);
+        this.spend = Counter.builder("route.google.spend")
+                .description("Estimated Google Directions spend")
+                .baseUnit(currency)
+                .register(meterRegistry);
+        Gauge.builder("route.google.tokens", global, TokenBucket::available)
+                .description("Google Directions tokens available now")
+                .tag("bucket", "global")
+                .register(meterRegistry);
+
+        log.info("[QUOTA] Google {} | budget {}/day (cache-only from {}), global {}/min burst {}, "
+                        + "user {}/min burst {}, reset at midnight {}",
+                enabled ? "guarded" : "unguarded", dailyBudget, cacheOnlyCalls, globalPerMinute,
+                globalCapacity, userPerMinute, userCapacity, resetZone);
+    }
+
+    /** Gauges on the quota itself, registered once it is fully constructed. */
+    @PostConstruct
+    void registerGauges() {
+        Gauge.builder("route.google.budget.used", this, GoogleQuota::budgetUsed)
+                .description("Share of today's Google Directions budget spent")
+                .register(meterRegistry);
+        Gauge.builder("route.google.cache_only", this, q -> q.isCacheOnly() ? 1 : 0)
+                .description("1 while routes are served from cache only to save the Google budget")
+                .register(meterRegistry);
+    }
+
+    private static Counter refusedCounter(String scope, MeterRegistry meterRegistry) {
+        return Counter.builder("route.google.refused")
+                .description("Google Directions calls refused by the quota guard")
+                .tag("scope", scope)
+                .register(meterRegistry);
+    }
+
+    private static Duration perToken(long perMinute) {
+        if (perMinute < 1) {
+            throw new IllegalArgumentException("Refill rate must be at least 1 per minute: " + perMinute);
+        }
+        return Duration.ofMinutes(1).dividedBy(perMinute);
+    }
+
+    // -------------------------------------------------------------------------
+    // Caller
+    // -------------------------------------------------------------------------
+
+    /** Runs the call with Google calls charged to {@code user}; {@code null} charges only the global bucket. */
+    public static <V, E extends Exception> V onBehalfOf(String user, SingleFlight.Call<V, E> call) throws E {
+        String outer = USER.get();
+        USER.set(user);
+        try {
+            return call.call();
+        } finally {
+            if (outer != null) {
+                USER.set(outer);
+            } else {
+                USER.remove();
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Guard
+    // -------------------------------------------------------------------------
+
+    /**
+     * Takes the tokens for one Google call, or throws
+     * {@link QuotaExceededException} if it may not be made.
+     */
+    public Grant acquire() {
+        if (!enabled) return Grant.NONE;
+
+        if (isCacheOnly()) {
+            refusedBudget.increment();
+            throw new QuotaExceededException(DependencyGuard.GOOGLE, "budget", untilReset());
+        }
+        String user = USER.get();
+        TokenBucket userBucket = user == null ? null
+                : users.get(user, u -> new TokenBucket(userCapacity, userInterval));
+        if (userBucket != null && !userBucket.tryAcquire()) {
+            refusedUser.increment();
+            log.warn("[QUOTA] Google call refused for {}: user bucket empty", user);
+            throw new QuotaExceededException(DependencyGuard.GOOGLE, "user", userBucket.timeToNextToken());
+        }
+        if (!global.tryAcquire()) {
+            if (userBucket != null) userBucket.refund();
+            refusedGlobal.increment();
+            log.warn("[QUOTA] Google call refused{}: global bucket empty", user == null ? "" : " for " + user);
+            throw new QuotaExceededException(DependencyGuard.GOOGLE, "global", global.timeToNextToken());
+        }
+        return new Grant(userBucket, global);
+    }
+
+    /** A call Google answered and bills for, returning {@code alternatives} routes. */
+    public void recordBilled(int alternatives) {
+        billed.increment();
+        elements.increment(alternatives);
+        spend.increment(costPerCall);
+        Day day = day();
+        day.calls().increment();
+        long spent = day.calls().sum();
+        if (spent >= cacheOnlyCalls && day.cacheOnlyLogged().compareAndSet(false, true)) {
+            log.warn("[QUOTA] {} of {} Google calls spent today, serving routes from cache only until {}",
+                    spent, dailyBudget, nextReset().toLocalDateTime());
+        }
+    }
+
+    public boolean isCacheOnly() {
+        return enabled && day().calls().sum() >= cacheOnlyCalls;
+    }
+
+    public double budgetUsed() {
+        return (double) day().calls().sum() / dailyBudget;
+    }
+
+    /** The current quota day, rolled over on first use after midnight. */
+    private Day day() {
+        Day current = today.get();
+        LocalDate date = LocalDate.now(resetZone);
+        if (current.date().equals(date)) return current;
+
+        Day next = new Day(date);
+        if (today.compareAndSet(current, next)) {
+            log.info("[QUOTA] Google budget reset, {} calls billed on {}", current.calls().sum(), current.date());
+            return next;
+        }
+        return today.get();
+    }
+
+    private ZonedDateTime nextReset() {
+        return LocalDate.now(resetZone).plusDays(1).atStartOfDay(resetZone);
+    }
+
+    private Duration untilReset() {
+        return Duration.between(ZonedDateTime.now(resetZone), nextReset());
+    }
+}
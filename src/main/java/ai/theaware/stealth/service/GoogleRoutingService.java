@@ -1,78 +1,115 @@
 package ai.theaware.stealth.service;
 
 import java.io.IOException;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 
-import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.GeometryFactory;
 import org.locationtech.jts.geom.PrecisionModel;
+import org.locationtech.jts.geom.impl.PackedCoordinateSequence;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.maps.DirectionsApi;
-import com.google.maps.GeoApiContext;
 import com.google.maps.errors.ApiException;
-import com.google.maps.model.DirectionsResult;
-import com.google.maps.model.DirectionsRoute;
-import com.google.maps.model.LatLng;
 
-import ai.theaware.stealth.dto.HealthMetricsResponseDTO;
-import ai.theaware.stealth.dto.PredictionResponseDTO.RouteForecast;
-import ai.theaware.stealth.dto.PredictionResponseDTO.StationForecastEntry;
+import ai.theaware.stealth.config.SnappedRouteKeyGenerator;
+import ai.theaware.stealth.dto.PackedPolyline;
+import ai.theaware.stealth.dto.PredictionResponseDTO;
+import ai.theaware.stealth.dto.RouteAnalysis;
 import ai.theaware.stealth.dto.RouteAnalysisResponseDTO;
+import ai.theaware.stealth.dto.RouteCacheKey;
+import ai.theaware.stealth.dto.RouteDirections;
 import ai.theaware.stealth.dto.RouteResponseDTO;
 import ai.theaware.stealth.entity.Route;
 import ai.theaware.stealth.entity.Users;
 import ai.theaware.stealth.repository.RouteRepository;
-import ai.theaware.stealth.config.CastUtils;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Orchestrates /api/routes/process.
+ *
+ * The shared, user-independent work is split into separately cached stages,
+ * each keyed by the snapped origin/destination cell pair:
+ *
+ *   1. {@link DirectionsService}          – Google Directions   (route_directions)
+ *   2. {@link RouteAnalysisService}       – AI analyze-routes   (route_ai_analysis)
+ *   3. {@link RouteRecommendationService} – scoring + health    (route_recommendations)
+ *
+ * The per-user side effects (prediction trigger, history write) run here on
+ * every request, after the cache lookups, so a cache hit no longer skips them.
+ *
+ * Each stage goes through {@link SingleFlight}, so concurrent requests that
+ * miss the cache for the same key share one Google / AI call. The Google
+ * call, if one is needed, is charged to the requesting user's quota
+ * ({@link GoogleQuota}).
+ *
+ * Once Directions returns, the AI analysis, the forecast and the history write
+ * run concurrently on virtual threads under one deadline
+ * ({@code app.route.pipeline.deadline}, measured from request start); stages
+ * still running when it passes are cancelled. The deadline is also set as
+ * the {@link Deadline} of every stage thread, so the Google and AI calls
+ * time out with it instead of on their own fixed timeouts, and
+ * {@link DependencyGuard} refuses calls the deadline leaves no time for. The AI analysis and forecast
+ * run in the interactive lane of {@link PriorityTaskExecutor}, the history
+ * write in the background lane.
+ */
 @Service
 @Slf4j
 public class GoogleRoutingService {
 
-    private static final double SCORING_WEIGHT = 0.5;
-
-    @Value("${app.ai.service.url}")
-    private String aiAnalyzeUrl;
-
-    private final GeoApiContext geoApiContext;
     private final RouteRepository routeRepository;
     private final GeometryFactory geometryFactory;
-    private final RestTemplate restTemplate;
-    private final ObjectMapper objectMapper;
     private final PredictionService predictionService;
-    private final HealthMetricsService healthMetricsService;
-
-    private static final double INTERVAL_METERS = 1000.0;
+    private final DirectionsService directionsService;
+    private final RouteAnalysisService routeAnalysisService;
+    private final RouteRecommendationService routeRecommendationService;
+    private final SnappedRouteKeyGenerator routeKeys;
+    private final SingleFlight singleFlight;
+    private final ExecutorService pipelineExecutor;
+    private final PriorityTaskExecutor lanes;
+    private final StageMetrics stageMetrics;
+    private final Duration pipelineDeadline;
 
     public GoogleRoutingService(
             RouteRepository routeRepository,
-            RestTemplate restTemplate,
-            GeoApiContext geoApiContext,
             PredictionService predictionService,
-            HealthMetricsService healthMetricsService
+            DirectionsService directionsService,
+            RouteAnalysisService routeAnalysisService,
+            RouteRecommendationService routeRecommendationService,
+            SnappedRouteKeyGenerator routeKeys,
+            SingleFlight singleFlight,
+            @Qualifier("routePipelineExecutor") ExecutorService pipelineExecutor,
+            PriorityTaskExecutor lanes,
+            StageMetrics stageMetrics,
+            @Value("${app.route.pipeline.deadline:20s}") Duration pipelineDeadline
     ) {
         this.routeRepository = routeRepository;
-        this.restTemplate = restTemplate;
-        this.geoApiContext = geoApiContext;
         this.predictionService = predictionService;
-        this.healthMetricsService = healthMetricsService;
-        this.objectMapper = new ObjectMapper();
+        this.directionsService = directionsService;
+        this.routeAnalysisService = routeAnalysisService;
+        this.routeRecommendationService = routeRecommendationService;
+        this.routeKeys = routeKeys;
+        this.singleFlight = singleFlight;
+        this.pipelineExecutor = pipelineExecutor;
+        this.lanes = lanes;
+        this.stageMetrics = stageMetrics;
+        this.pipelineDeadline = pipelineDeadline;
         this.geometryFactory = new GeometryFactory(new PrecisionModel(), 4326);
     }
 
@@ -80,34 +117,28 @@ public class GoogleRoutingService {
     // Public API
     // -------------------------------------------------------------------------
 
-    public RouteResponseDTO getProcessedRouteDTO(Double sLat, Double sLon, Double dLat, Double dLon) {
+    public RouteResponseDTO getProcessedRouteDTO(Double sLat, Double sLon, Double dLat, Double dLon, String email) {
         validateCoordinates(sLat, sLon, dLat, dLon);
         try {
-            DirectionsResult result = fetchDirectionsFromGoogle(sLat, sLon, dLat, dLon);
-            return buildRouteResponseDTO(result);
+            return fetchDirections(sLat, sLon, dLat, dLon, email).getResampled();
         } catch (ApiException | IOException | InterruptedException e) {
             log.error("Failed to build Debug DTO", e);
             throw new RuntimeException("Resampling failed: " + e.getMessage());
         }
     }
 
-    public RouteResponseDTO getRawRouteDTO(Double sLat, Double sLon, Double dLat, Double dLon) {
+    public RouteResponseDTO getRawRouteDTO(Double sLat, Double sLon, Double dLat, Double dLon, String email) {
         validateCoordinates(sLat, sLon, dLat, dLon);
         try {
-            DirectionsResult result = fetchDirectionsFromGoogle(sLat, sLon, dLat, dLon);
+            RouteDirections directions = fetchDirections(sLat, sLon, dLat, dLon, email);
 
             List<RouteResponseDTO.RouteDetail> routesList = new ArrayList<>();
-            for (DirectionsRoute route : result.routes) {
-                List<RouteResponseDTO.Coordinate> rawCoords = route.overviewPolyline.decodePath()
-                        .stream()
-                        .map(p -> new RouteResponseDTO.Coordinate(p.lat, p.lng))
-                        .collect(Collectors.toList());
-
+            for (RouteDirections.Alternative route : directions.getAlternatives()) {
                 routesList.add(new RouteResponseDTO.RouteDetail(
-                        route.legs[0].distance.humanReadable,
-                        route.legs[0].distance.inMeters,
-                        route.legs[0].duration.humanReadable,
-                        rawCoords
+                        route.distanceText(),
+                        route.distanceMeters(),
+                        route.durationText(),
+                        PackedPolyline.decode(route.encodedPolyline())
                 ));
             }
             return new RouteResponseDTO(routesList.size(), routesList);
@@ -118,7 +149,6 @@ public class GoogleRoutingService {
         }
     }
 
-    @Cacheable(value = "aqi_routes", key = "#sLat + ',' + #sLon + ',' + #dLat + ',' + #dLon")
     public RouteAnalysisResponseDTO processRoute(
             Double sLat,
             Double sLon,
@@ -126,238 +156,306 @@ public class GoogleRoutingService {
             Double dLon,
             Users user
     ) {
+        validateCoordinates(sLat, sLon, dLat, dLon);
+        List<PredictionJob> started = new ArrayList<>(1);
+        RouteAnalysisResponseDTO analysis = runPipeline(sLat, sLon, dLat, dLon, user, geometry -> {}, started::add);
+        return started.isEmpty() ? analysis : analysis.withPredictionJobId(started.get(0).getId());
+    }
 
-        log.info("[CACHE MISS] Processing fresh request for user: {}", user.getEmail());
+    /**
+     * Streaming variant of {@link #processRoute}: returns immediately and
+     * reports each stage to {@code listener} from the pipeline threads as it
+     * completes. The forecast is delivered when its future completes, so no
+     * thread waits on it. A stage that throws, or a pipeline that cannot be
+     * started, ends the stream with {@link RouteStreamListener#onError}.
+     *
+     * @return handle that stops the pipeline and its forecast, e.g. when the client goes away
+     */
+    public RouteStream streamRoute(Double sLat, Double sLon, Double dLat, Double dLon,
+                                   Users user, RouteStreamListener listener) {
         validateCoordinates(sLat, sLon, dLat, dLon);
+        RouteStream stream = new RouteStream();
         try {
+            stream.attach(pipelineExecutor.submit(() -> {
+                try {
+                    runStreamed(sLat, sLon, dLat, dLon, user, listener, stream);
+                } catch (RuntimeException e) {
+                    log.error("[STREAM] Route pipeline failed for {}", user.getEmail(), e);
+                    endWithError(listener, "Processing Error");
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            log.warn("[STREAM] Route pipeline not started for {}: {}", user.getEmail(), e.getMessage());
+            endWithError(listener, "Server busy, please retry shortly");
+        }
+        return stream;
+    }
 
-            DirectionsResult result =
-                    fetchDirectionsFromGoogle(sLat, sLon, dLat, dLon);
-
-            RouteResponseDTO routesDto =
-                    buildRouteResponseDTO(result);
-
-            Map<String, Double> routeDurations =
-                    extractDurationsMap(result);
-
-            Map<String, Object> aiRequest = Map.of(
-                    "start_loc", List.of(sLat, sLon),
-                    "end_loc", List.of(dLat, dLon),
-                    "routeCount", routesDto.getRouteCount(),
-                    "routes", routesDto.getRoutes()
-            );
-
-            logJsonPayload(aiRequest);
-
-            // Fire-and-forget async forecast
-            predictionService.triggerPrediction(
-                    user.getEmail(),
-                    sLat, sLon,
-                    dLat, dLon,
-                    routesDto.getRoutes()
-            );
-
-            // Call AI analysis service
-            Object rawAiResponse;
-
+    private void runStreamed(Double sLat, Double sLon, Double dLat, Double dLon, Users user,
+                             RouteStreamListener listener, RouteStream stream) {
+        List<PredictionJob> started = new ArrayList<>(1);
+        RouteAnalysisResponseDTO analysis = runPipeline(sLat, sLon, dLat, dLon, user, listener::onGeometry,
+                job -> {
+                    started.add(job);
+                    stream.attach(job);
+                });
+
+        if (started.isEmpty()) {
+            listener.onAnalysis(analysis);
+            listener.onComplete();
+            return;
+        }
+        PredictionJob job = started.get(0);
+        listener.onAnalysis(analysis.withPredictionJobId(job.getId()));
+        job.getResult().whenComplete((forecast, error) -> {
             try {
-                rawAiResponse = restTemplate.postForObject(
-                        aiAnalyzeUrl,
-                        aiRequest,
-                        Object.class
-                );
-            } catch (RestClientException e) {
-
-                log.error("AI Service Unreachable: {}", e.getMessage());
+                if (error != null) {
+                    PredictionResponseDTO failed = new PredictionResponseDTO();
+                    failed.setStatus(error instanceof CancellationException ? "cancelled" : "error");
+                    listener.onForecast(failed);
+                } else {
+                    listener.onForecast(forecast);
+                }
+                listener.onComplete();
+            } catch (RuntimeException e) {
+                log.error("[STREAM] Forecast delivery failed for {}", user.getEmail(), e);
+                endWithError(listener, "Processing Error");
+            }
+        });
+    }
 
-                RouteAnalysisResponseDTO errorResponse =
-                        new RouteAnalysisResponseDTO();
+    /** Last resort for a stream whose pipeline failed: tell the client, then close. */
+    private static void endWithError(RouteStreamListener listener, String message) {
+        try {
+            listener.onError(message);
+        } finally {
+            listener.onComplete();
+        }
+    }
 
-                errorResponse.setRecommended(null);
-                errorResponse.setHealthMetrics(null);
+    // -------------------------------------------------------------------------
+    // Pipeline
+    // -------------------------------------------------------------------------
 
-                errorResponse.setAiField("status", "error");
-                errorResponse.setAiField("message", "AI Service Unreachable");
+    private RouteAnalysisResponseDTO runPipeline(
+            Double sLat,
+            Double sLon,
+            Double dLat,
+            Double dLon,
+            Users user,
+            Consumer<RouteResponseDTO> onGeometry,
+            Consumer<PredictionJob> onPredictionStarted
+    ) {
+        RouteCacheKey key = routeKeys.snap(sLat, sLon, dLat, dLon);
+        Instant deadline = Instant.now().plus(pipelineDeadline);
+        log.info("Processing route request for user: {} | key={}", user.getEmail(), key);
+        return GoogleQuota.onBehalfOf(user.getEmail(), () -> Deadline.within(deadline,
+                () -> runStages(key, deadline, sLat, sLon, dLat, dLon, user, onGeometry, onPredictionStarted)));
+    }
 
-                return errorResponse;
-            }
+    /** The pipeline body; runs with {@code deadline} in effect and hands it to every stage thread. */
+    private RouteAnalysisResponseDTO runStages(
+            RouteCacheKey key,
+            Instant deadline,
+            Double sLat,
+            Double sLon,
+            Double dLat,
+            Double dLon,
+            Users user,
+            Consumer<RouteResponseDTO> onGeometry,
+            Consumer<PredictionJob> onPredictionStarted
+    ) {
+        RouteDirections directions;
+        RouteStageEvent directionsEvent = RouteStageEvent.start("directions", true);
+        try {
+            directions = fetchDirections(key, sLat, sLon, dLat, dLon);
+            directionsEvent.routes(directions.getResampled().getRoutes()).succeeded();
+        } catch (ApiException | IOException | InterruptedException e) {
+            log.error("Fatal routing error", e);
+            return errorResponse("Processing Error: " + e.getMessage());
+        } catch (QuotaExceededException e) {
+            log.warn("[PIPELINE] Directions not fetched for {}: {}", key, e.getMessage());
+            return errorResponse("Route quota exceeded, retry in " + e.getRetryAfter().toSeconds() + "s");
+        } catch (DependencyUnavailableException e) {
+            log.warn("[PIPELINE] Directions not fetched for {}: {}", key, e.getMessage());
+            return errorResponse("Routing Service Unavailable");
+        } finally {
+            directionsEvent.finish();
+        }
 
-            // Save history
+        if (directions.isEmpty()) {
+            return errorResponse("No route found between the given points");
+        }
+        onGeometry.accept(directions.getResampled());
+
+        // Fan out: forecast, AI analysis and history write run concurrently
+        PredictionJob predictionJob = predictionService.startJob(
+                user.getEmail(),
+                sLat, sLon,
+                dLat, dLon,
+                directions.getResampled().getRoutes()
+        );
+        onPredictionStarted.accept(predictionJob);
+        Future<RouteAnalysis> analysis = submitTo(lanes.interactive(), () -> Deadline.within(deadline,
+                () -> traced("ai_analysis", true, directions, () -> singleFlight.execute("ai_analysis", key,
+                        () -> routeAnalysisService.analyze(key, sLat, sLon, dLat, dLon, directions)))));
+        Future<?> history = submitTo(lanes.background(), () -> traced("history", false, directions, () -> {
             checkAndSaveHistory(
                     sLat, sLon,
                     dLat, dLon,
                     user,
-                    result.routes[0]
+                    directions.getPrimary()
             );
+            return null;
+        }));
 
-            // Enrich with scoring + health metrics
-            return (RouteAnalysisResponseDTO) appendRecommendation(
-                    rawAiResponse,
-                    routeDurations,
-                    routesDto.getRouteCount()
-            );
-
-        } catch (ApiException | IOException | InterruptedException e) {
-
-            log.error("Fatal routing error", e);
-
-            RouteAnalysisResponseDTO errorResponse =
-                    new RouteAnalysisResponseDTO();
-
-            errorResponse.setRecommended(null);
-            errorResponse.setHealthMetrics(null);
+        try {
+            RouteAnalysis aiResponse = analysis.get(remainingMillis(deadline), TimeUnit.MILLISECONDS);
+            awaitHistory(history, deadline, user);
 
-            errorResponse.setAiField("status", "error");
-            errorResponse.setAiField("message", "Processing Error: " + e.getMessage());
+            // Enrich with scoring + health metrics
+            return traced("recommendation", true, directions, () -> singleFlight.execute("recommendation", key,
+                    () -> routeRecommendationService.recommend(key, aiResponse, directions)));
 
-            return errorResponse;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RestClientException) {
+                log.error("AI Service Unreachable: {}", e.getCause().getMessage());
+                return errorResponse("AI Service Unreachable");
+            }
+            if (e.getCause() instanceof DependencyUnavailableException) {
+                log.warn("[PIPELINE] AI analysis not requested for {}: {}", key, e.getCause().getMessage());
+                return errorResponse("AI Service Unavailable");
+            }
+            if (e.getCause() instanceof RejectedExecutionException) {
+                log.warn("[PIPELINE] Interactive lane full, AI analysis refused for {}", key);
+                return errorResponse("AI Service Busy");
+            }
+            log.error("Fatal routing error", e.getCause());
+            return errorResponse("Processing Error: " + e.getCause().getMessage());
+
+        } catch (TimeoutException e) {
+            log.error("[PIPELINE] AI analysis missed the {} deadline for {}", pipelineDeadline, key);
+            return errorResponse("AI Service Timeout");
+
+        } catch (CancellationException e) {
+            log.warn("[PIPELINE] AI analysis dropped from a full interactive lane for {}", key);
+            return errorResponse("AI Service Busy");
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return errorResponse("Processing interrupted");
+
+        } finally {
+            // No-ops for stages that already finished
+            analysis.cancel(true);
+            history.cancel(true);
+            cancelAtDeadline(predictionJob, deadline);
         }
     }
 
     // -------------------------------------------------------------------------
-    // Scoring integration
+    // Helpers
     // -------------------------------------------------------------------------
 
-    private Object appendRecommendation(Object rawAiResponse,
-                                        Map<String, Double> routeDurations,
-                                        int routeCount) {
+    /**
+     * Debug endpoints share the Directions cache but are not counted in the
+     * key statistics; a Google call is charged to {@code email}.
+     */
+    private RouteDirections fetchDirections(double sLat, double sLon, double dLat, double dLon, String email)
+            throws ApiException, InterruptedException, IOException {
+        RouteCacheKey key = RouteCacheKey.snap(sLat, sLon, dLat, dLon, routeKeys.getActiveCellMeters());
         try {
-            Map<String, Object> aiMap = objectMapper.convertValue(rawAiResponse,
-                    objectMapper.getTypeFactory().constructMapType(LinkedHashMap.class, String.class, Object.class));
-
-            Map<String, RouteForecast> routeForecasts = buildRouteForecastsFromAnalysis(aiMap, routeCount);
-            Map<String, Double> scores = RouteScoringService.computeScores(routeForecasts, routeDurations, SCORING_WEIGHT);
-
-            // Sort route ids by score ascending (lower = better)
-            List<String> ranked = scores.entrySet().stream()
-                    .sorted(Map.Entry.comparingByValue())
-                    .map(Map.Entry::getKey)
-                    .collect(Collectors.toList());
-
-            log.info("[SCORE] Route scores: {} | Ranked (best→poor): {}", scores, ranked);
-
-            RouteAnalysisResponseDTO response = new RouteAnalysisResponseDTO();
-            aiMap.forEach(response::setAiField);
-            applyRankLabels(response, ranked);
-
-            // Compute health metrics using full enriched map
-            Map<String, Object> enrichedMap = new LinkedHashMap<>(aiMap);
-            enrichedMap.put("recommended", ranked.get(0));
-
-            HealthMetricsResponseDTO healthMetrics =
-                    healthMetricsService.compute(enrichedMap);
-
-            // Attach health metrics
-            response.setHealthMetrics(healthMetrics);
-
-            return response;
-
-        } catch (IllegalArgumentException e) {
-            log.error("[SCORE] Scoring failed, applying default rank labels: {}", e.getMessage(), e);
-            try {
-                Map<String, Object> aiMap = objectMapper.convertValue(rawAiResponse,
-                        objectMapper.getTypeFactory().constructMapType(LinkedHashMap.class, String.class, Object.class));
-                RouteAnalysisResponseDTO response = new RouteAnalysisResponseDTO();
-                aiMap.forEach(response::setAiField);
-                // Fallback: rank by natural order Route_1, Route_2, Route_3
-                List<String> fallback = new ArrayList<>();
-                for (int i = 1; i <= routeCount; i++) fallback.add("Route_" + i);
-                applyRankLabels(response, fallback);
-                return response;
-            } catch (IllegalArgumentException inner) {
-                log.error("[SCORE] Fallback also failed: {}", inner.getMessage());
-                return rawAiResponse;
-            }
+            return GoogleQuota.onBehalfOf(email, () -> fetchDirections(key, sLat, sLon, dLat, dLon));
+        } catch (ApiException | IOException | InterruptedException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            // fetch declares nothing else; only reachable if that signature changes
+            throw new IllegalStateException(e);
         }
     }
 
-    private void applyRankLabels(RouteAnalysisResponseDTO response, List<String> ranked) {
-        if (ranked.isEmpty()) return;
-
-        // Build label lookup: routeId -> label, keyed by score-sorted position
-        Map<String, String> labelMap = new HashMap<>();
-        labelMap.put(ranked.get(0), "best");
-        if (ranked.size() == 2) {
-            labelMap.put(ranked.get(1), "poor");
-        } else if (ranked.size() >= 3) {
-            labelMap.put(ranked.get(1), "moderate");
-            labelMap.put(ranked.get(ranked.size() - 1), "poor");
+    private RouteDirections fetchDirections(RouteCacheKey key, double sLat, double sLon, double dLat, double dLon)
+            throws ApiException, InterruptedException, IOException {
+        try {
+            return singleFlight.execute("directions", key,
+                    () -> directionsService.fetch(key, sLat, sLon, dLat, dLon));
+        } catch (ApiException | IOException | InterruptedException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            // fetch declares nothing else; only reachable if that signature changes
+            throw new IllegalStateException(e);
         }
-        ranked.stream()
-              .sorted()
-              .forEach(routeId -> response.setAiField(routeId, labelMap.get(routeId)));
+    }
 
-        response.setRecommended(ranked.get(0));
+    /** History is best-effort: a slow write is cancelled, never fails the request. */
+    private void awaitHistory(Future<?> history, Instant deadline, Users user) throws InterruptedException {
+        try {
+            history.get(remainingMillis(deadline), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("[PIPELINE] History write missed the deadline for {}", user.getEmail());
+        } catch (ExecutionException | CancellationException e) {
+            log.warn("[PIPELINE] History write skipped for {}: {}", user.getEmail(),
+                    e instanceof ExecutionException ? e.getCause().getMessage() : "dropped from background lane");
+        }
     }
 
     /**
-     * Builds a {@code Map<routeId, RouteForecast>} from the {@code route_analysis}
-     * block inside the AI response map.
-     *
-     * Each detail point's AQI is wrapped into a {@link StationForecastEntry} so
-     * {@link RouteScoringService} can iterate over them uniformly.
+     * The forecast is polled separately via /predict, so the response does not
+     * wait for it; it is still cancelled once the pipeline deadline passes.
      */
-    private Map<String, RouteForecast> buildRouteForecastsFromAnalysis(Map<String, Object> aiMap, int routeCount) {
-        Map<String, RouteForecast> result = new LinkedHashMap<>();
-
-        Object routeAnalysisRaw = aiMap.get("route_analysis");
-        if (routeAnalysisRaw == null) {
-            log.warn("[SCORE] 'route_analysis' missing from AI response – using empty forecasts");
-            return buildEmptyForecasts(routeCount);
-        }
-
-        Map<String, Object> routeAnalysis = CastUtils.safeMap(routeAnalysisRaw);
-        if (routeAnalysis.isEmpty()) return buildEmptyForecasts(routeCount);
-
-        for (Map.Entry<String, Object> entry : routeAnalysis.entrySet()) {
-            String routeId = entry.getKey();
-            Map<String, Object> routeData = CastUtils.safeMap(entry.getValue());
-
-            List<Object> details = CastUtils.safeList(routeData.getOrDefault("details", List.of()));
-
-            List<StationForecastEntry> forecastPoints = new ArrayList<>();
-            for (Object detailObj : details) {
-                Map<String, Object> detail = CastUtils.safeMap(detailObj);
-                Double aqi = toDouble(detail.get("aqi"));
-                if (aqi != null) {
-                    StationForecastEntry entry2 = new StationForecastEntry();
-                    entry2.setAqi(aqi);
-                    forecastPoints.add(entry2);
-                }
+    private void cancelAtDeadline(PredictionJob job, Instant deadline) {
+        if (job.getResult().isDone()) return;
+        pipelineExecutor.execute(() -> {
+            try {
+                job.getResult().get(remainingMillis(deadline), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                job.cancel();
+                log.warn("[PIPELINE] Prediction job {} cancelled at the {} deadline", job.getId(), pipelineDeadline);
+            } catch (ExecutionException | CancellationException e) {
+                // Reported by the task itself
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
+        });
+    }
 
-            Double avgAqi = toDouble(routeData.get("avg_aqi"));
-            RouteForecast forecast = new RouteForecast();
-            forecast.setForecast(forecastPoints);
-            forecast.setAvgRouteAqi(avgAqi);
-            result.put(routeId, forecast);
+    /** Runs one stage inside a {@link RouteStageEvent}. */
+    private static <V, E extends Exception> V traced(String stage, boolean cached, RouteDirections directions,
+                                                     SingleFlight.Call<V, E> call) throws E {
+        RouteStageEvent event = RouteStageEvent.start(stage, cached).routes(directions.getResampled().getRoutes());
+        try {
+            V value = call.call();
+            event.succeeded();
+            return value;
+        } finally {
+            event.finish();
         }
-
-        return result;
     }
 
-    /** Fallback: produce empty RouteForecast entries so scoring doesn't crash. */
-    private Map<String, RouteForecast> buildEmptyForecasts(int routeCount) {
-        Map<String, RouteForecast> result = new LinkedHashMap<>();
-        for (int i = 1; i <= routeCount; i++) {
-            RouteForecast rf = new RouteForecast();
-            rf.setForecast(List.of());
-            result.put("Route_" + i, rf);
+    /** Submits to a lane; a full lane yields an already-failed future instead of throwing. */
+    private static <T> Future<T> submitTo(ExecutorService lane, Callable<T> task) {
+        try {
+            return lane.submit(task);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
         }
-        return result;
     }
 
-    /**
-     * Extracts travel durations (in minutes) from the Google Directions result,
-     * keyed as "Route_1", "Route_2", …
-     */
-    private Map<String, Double> extractDurationsMap(DirectionsResult result) {
-        Map<String, Double> durations = new HashMap<>();
-        for (int i = 0; i < result.routes.length; i++) {
-            double durationMinutes = result.routes[i].legs[0].duration.inSeconds / 60.0;
-            durations.put("Route_" + (i + 1), durationMinutes);
-        }
-        return durations;
+    private static long remainingMillis(Instant deadline) {
+        return Math.max(0, Duration.between(Instant.now(), deadline).toMillis());
+    }
+
+    private static RouteAnalysisResponseDTO errorResponse(String message) {
+        RouteAnalysisResponseDTO errorResponse =
+                new RouteAnalysisResponseDTO();
+
+        errorResponse.setRecommended(null);
+        errorResponse.setHealthMetrics(null);
+
+        errorResponse.setAiField("status", "error");
+        errorResponse.setAiField("message", message);
+
+        return errorResponse;
     }
 
     /**
@@ -381,58 +479,10 @@ public class GoogleRoutingService {
         }
     }
 
-    // -------------------------------------------------------------------------
-    // Helpers
-    // -------------------------------------------------------------------------
-
-    private Double toDouble(Object value) {
-        if (value == null) return null;
-        if (value instanceof Number number) return number.doubleValue();
-        try { return Double.valueOf(value.toString()); } catch (NumberFormatException e) { return null; }
-    }
-
-    private DirectionsResult fetchDirectionsFromGoogle(Double sLat, Double sLon, Double dLat, Double dLon)
-            throws ApiException, InterruptedException, IOException {
-        return DirectionsApi.newRequest(geoApiContext)
-                .origin(new LatLng(sLat, sLon))
-                .destination(new LatLng(dLat, dLon))
-                .alternatives(true)
-                .await();
-    }
-
-    private RouteResponseDTO buildRouteResponseDTO(DirectionsResult result) {
-        List<RouteResponseDTO.RouteDetail> routesList = new ArrayList<>();
-
-        for (DirectionsRoute route : result.routes) {
-            List<RouteResponseDTO.Coordinate> rawCoords = route.overviewPolyline.decodePath()
-                    .stream()
-                    .map(p -> new RouteResponseDTO.Coordinate(p.lat, p.lng))
-                    .collect(Collectors.toList());
-
-            List<RouteResponseDTO.Coordinate> resampled = resamplePath(rawCoords, INTERVAL_METERS);
-
-            routesList.add(new RouteResponseDTO.RouteDetail(
-                    route.legs[0].distance.humanReadable,
-                    route.legs[0].distance.inMeters,
-                    route.legs[0].duration.humanReadable,
-                    resampled
-            ));
-        }
-        return new RouteResponseDTO(routesList.size(), routesList);
-    }
-
-    private void logJsonPayload(Object payload) {
-        try {
-            String json = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(payload);
-            log.info("\n==============================\nSENDING TO AI SERVICE:\n{}\n==============================", json);
-        } catch (JsonProcessingException e) {
-            log.warn("Could not log JSON payload: {}", e.getMessage());
-        }
-    }
-
     private void checkAndSaveHistory(Double sLat, Double sLon, Double dLat, Double dLon,
-                                     Users user, DirectionsRoute primaryRoute) {
-        Optional<Route> lastEntry = routeRepository.findFirstByUserOrderByCreatedAtDesc(user);
+                                     Users user, RouteDirections.Alternative primaryRoute) {
+        Optional<Route> lastEntry = stageMetrics.record("history_lookup",
+                () -> routeRepository.findFirstByUserOrderByCreatedAtDesc(user));
 
         boolean isDuplicate = lastEntry.isPresent() &&
                 lastEntry.get().getStartLat().equals(sLat) &&
@@ -453,7 +503,7 @@ public class GoogleRoutingService {
     }
 
     private void saveToDatabase(Double sLat, Double sLon, Double dLat, Double dLon,
-                                Users user, DirectionsRoute primaryRoute) throws Exception {
+                                Users user, RouteDirections.Alternative primaryRoute) throws Exception {
         Route routeEntity = new Route();
         routeEntity.setUser(user);
         routeEntity.setStartLat(sLat);
@@ -462,53 +512,9 @@ public class GoogleRoutingService {
         routeEntity.setEndLon(dLon);
         routeEntity.setCreatedAt(LocalDateTime.now());
 
-        List<LatLng> path = primaryRoute.overviewPolyline.decodePath();
-        Coordinate[] jtsCoords = path.stream()
-                .map(p -> new Coordinate(p.lng, p.lat))
-                .toArray(Coordinate[]::new);
-
-        routeEntity.setGeom(geometryFactory.createLineString(jtsCoords));
-        routeRepository.save(routeEntity);
-    }
-
-    private List<RouteResponseDTO.Coordinate> resamplePath(List<RouteResponseDTO.Coordinate> path, double interval) {
-        List<RouteResponseDTO.Coordinate> resampled = new ArrayList<>();
-        if (path.isEmpty()) return resampled;
-        resampled.add(round(path.get(0)));
-        double accumulatedDist = 0.0;
-        for (int i = 0; i < path.size() - 1; i++) {
-            RouteResponseDTO.Coordinate start = path.get(i);
-            RouteResponseDTO.Coordinate end = path.get(i + 1);
-            double segmentDist = haversine(start.getLat(), start.getLng(), end.getLat(), end.getLng());
-            while (accumulatedDist + segmentDist >= interval) {
-                double remainingNeeded = interval - accumulatedDist;
-                double ratio = remainingNeeded / segmentDist;
-                double nextLat = start.getLat() + (end.getLat() - start.getLat()) * ratio;
-                double nextLng = start.getLng() + (end.getLng() - start.getLng()) * ratio;
-                RouteResponseDTO.Coordinate nextPoint = new RouteResponseDTO.Coordinate(nextLat, nextLng);
-                resampled.add(round(nextPoint));
-                start = nextPoint;
-                segmentDist -= remainingNeeded;
-                accumulatedDist = 0.0;
-            }
-            accumulatedDist += segmentDist;
-        }
-        return resampled;
-    }
-
-    private RouteResponseDTO.Coordinate round(RouteResponseDTO.Coordinate c) {
-        double lat = BigDecimal.valueOf(c.getLat()).setScale(6, RoundingMode.HALF_UP).doubleValue();
-        double lng = BigDecimal.valueOf(c.getLng()).setScale(6, RoundingMode.HALF_UP).doubleValue();
-        return new RouteResponseDTO.Coordinate(lat, lng);
-    }
-
-    private double haversine(double lat1, double lon1, double lat2, double lon2) {
-        double R = 6371000;
-        double dLat = Math.toRadians(lat2 - lat1);
-        double dLon = Math.toRadians(lon2 - lon1);
-        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
-                Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) *
-                Math.sin(dLon / 2) * Math.sin(dLon / 2);
-        return 2 * R * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        PackedPolyline path = PackedPolyline.decode(primaryRoute.encodedPolyline());
+        routeEntity.setGeom(geometryFactory.createLineString(
+                new PackedCoordinateSequence.Double(path.toLngLatArray(), 2, 0)));
+        stageMetrics.record("history_save", () -> routeRepository.save(routeEntity));
     }
 }
\ No newline at end of file
@@ -0,0 +1,153 @@
+package ai.theaware.stealth.service;
+
+import ai.theaware.stealth.dto.PackedPolyline;
+
+/**
+ * Allocation-free polyline resampler.
+ *
+ * Walks a {@link PackedPolyline} and emits a point every {@code interval}
+ * metres into a caller-owned {@link PackedPolyline.Builder}, so the only
+ * allocation per route is the final trimmed copy.
+ *
+ * Segment lengths use a local equirectangular projection instead of a full
+ * haversine per segment:
+ *
+ *   d = R * sqrt(dPhi^2 + (cos(phi_m) * dLambda)^2)
+ *
+ * cos(phi_m) is evaluated with a second-order Taylor expansion around a
+ * reference latitude that is re-anchored (one cos/sin pair) whenever the
+ * route drifts more than {@link #REANCHOR_RADIANS} away from it. Haversine is
+ * only used where the planar error would matter: segments longer than
+ * {@link #MAX_PLANAR_METERS}, near the poles, or across the antimeridian.
+ * A segment across the antimeridian is also interpolated the short way
+ * round, with emitted longitudes wrapped back into [-180, 180].
+ *
+ * Accuracy against the previous haversine + BigDecimal implementation is
+ * checked by {@code PolylineResamplerTest}, fallbacks included: same point count
+ * and every coordinate within {@code 1.5e-6} degrees (about 0.15 m), i.e. one
+ * step of the 6-decimal output rounding.
+ */
+public final class PolylineResampler {
+
+    private static final double EARTH_RADIUS_METERS = 6371000.0;
+    private static final double DEG_TO_RAD = Math.PI / 180.0;
+
+    /** Re-anchor the projection after ~64 km of north/south drift. Taylor error stays below 2e-7. */
+    private static final double REANCHOR_RADIANS = 0.01;
+
+    /** Above this the planar error exceeds ~1e-7 relative; use haversine instead. */
+    private static final double MAX_PLANAR_METERS = 5000.0;
+
+    /** cos(lat) shrinks fast near the poles; the projection is not used above this. */
+    private static final double MAX_PLANAR_LATITUDE = 80.0;
+
+    private static final double SCALE = 1e6;
+
+    private PolylineResampler() {
+        // Utility class
+    }
+
+    /**
+     * Resamples {@code path} at {@code interval} metres into {@code out},
+     * rounding every emitted coordinate to 6 decimal places (HALF_UP).
+     * {@code out} is reset first and can be reused across calls.
+     */
+    public static void resample(PackedPolyline path, double interval, PackedPolyline.Builder out) {
+        out.reset();
+        int n = path.size();
+        if (n == 0) return;
+
+        out.add(round6(path.lat(0)), round6(path.lng(0)));
+
+        double refLat = path.lat(0) * DEG_TO_RAD;
+        double cosRef = Math.cos(refLat);
+        double sinRef = Math.sin(refLat);
+
+        double accumulatedDist = 0.0;
+
+        for (int i = 0; i < n - 1; i++) {
+            double startLat = path.lat(i);
+            double startLng = path.lng(i);
+            double endLat = path.lat(i + 1);
+            double endLng = path.lng(i + 1);
+
+            // ── Segment length: local projection, haversine fallback ─────────
+            double segmentDist;
+            double dLng = endLng - startLng;
+            double midLatDeg = (startLat + endLat) * 0.5;
+
+            if (dLng > 180.0 || dLng < -180.0) {
+                segmentDist = haversine(startLat, startLng, endLat, endLng);
+                // Interpolate towards the end point's unwrapped longitude
+                endLng += dLng > 0 ? -360.0 : 360.0;
+            } else if (midLatDeg > MAX_PLANAR_LATITUDE || midLatDeg < -MAX_PLANAR_LATITUDE) {
+                segmentDist = haversine(startLat, startLng, endLat, endLng);
+            } else {
+                double midLat = midLatDeg * DEG_TO_RAD;
+                double delta = midLat - refLat;
+                if (delta > REANCHOR_RADIANS || delta < -REANCHOR_RADIANS) {
+                    refLat = midLat;
+                    cosRef = Math.cos(refLat);
+                    sinRef = Math.sin(refLat);
+                    delta = 0.0;
+                }
+                double cosMid = cosRef - sinRef * delta - 0.5 * cosRef * delta * delta;
+
+                double x = dLng * DEG_TO_RAD * cosMid;
+                double y = (endLat - startLat) * DEG_TO_RAD;
+                segmentDist = EARTH_RADIUS_METERS * Math.sqrt(x * x + y * y);
+
+                if (segmentDist > MAX_PLANAR_METERS) {
+                    segmentDist = haversine(startLat, startLng, endLat, endLng);
+                }
+            }
+
+            // ── Emit points every `interval` metres along the segment ────────
+            while (accumulatedDist + segmentDist >= interval) {
+                double remainingNeeded = interval - accumulatedDist;
+                double ratio = remainingNeeded / segmentDist;
+                double nextLat = startLat + (endLat - startLat) * ratio;
+                double nextLng = startLng + (endLng - startLng) * ratio;
+                out.add(round6(nextLat), round6(wrapLongitude(nextLng)));
+                startLat = nextLat;
+                startLng = nextLng;
+                segmentDist -= remainingNeeded;
+                accumulatedDist = 0.0;
+            }
+            accumulatedDist += segmentDist;
+        }
+    }
+
+    /** Convenience overload for one-off callers; allocates its own buffer. */
+    public static PackedPolyline resample(PackedPolyline path, double interval) {
+        PackedPolyline.Builder out = new PackedPolyline.Builder(path.size());
+        resample(path, interval, out);
+        return out.build();
+    }
+
+    // -------------------------------------------------------------------------
+    // Math helpers
+    // -------------------------------------------------------------------------
+
+    /** 6-decimal HALF_UP rounding (ties away from zero) without BigDecimal. */
+    static double round6(double value) {
+        double scaled = Math.floor(Math.abs(value) * SCALE + 0.5) / SCALE;
+        return value < 0 ? -scaled : scaled;
+    }
+
+    static double wrapLongitude(double lng) {
+        if (lng > 180.0) return lng - 360.0;
+        if (lng < -180.0) return lng + 360.0;
+        return lng;
+    }
+
+    static double haversine(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = (lat2 - lat1) * DEG_TO_RAD;
+        double dLon = (lon2 - lon1) * DEG_TO_RAD;
+        double sinLat = Math.sin(dLat / 2);
+        double sinLon = Math.sin(dLon / 2);
+        double a = sinLat * sinLat +
+                Math.cos(lat1 * DEG_TO_RAD) * Math.cos(lat2 * DEG_TO_RAD) * sinLon * sinLon;
+        return 2 * EARTH_RADIUS_METERS * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+}
@@ -0,0 +1,249 @@
+package ai.theaware.stealth.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ai.theaware.stealth.dto.BatchPredictionResponseDTO;
+import ai.theaware.stealth.dto.PredictionResponseDTO;
+import ai.theaware.stealth.dto.RouteResponseDTO;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Micro-batcher for forecasts. Requests arriving within {@code window} of
+ * the first one (or until {@code maxSize} are queued) go to the AI service's
+ * predict-batch endpoint as one call, so N bursty requests cost one station
+ * model run instead of N. The response is split back per request id.
+ *
+ * Cancelled requests are dropped before sending; a batch already in flight
+ * is interrupted only once every request in it has been cancelled.
+ *
+ *   prediction.batch.size
+ */
+@Slf4j
+class PredictionBatcher {
+
+    private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService timerExecutor;
+    private final ExecutorService callExecutor;
+    private final String batchUrl;
+    private final Duration window;
+    private final int maxSize;
+    private final DistributionSummary batchSize;
+    private final StageMetrics stageMetrics;
+    private final DependencyGuard dependencies;
+
+    private final Object lock = new Object();
+    private List<Item> pending = new ArrayList<>();
+    private long generation;
+
+    /**
+     * @param timerExecutor runs the window timers and batch assembly
+     * @param callExecutor  runs the HTTP calls; may refuse them when full
+     */
+    PredictionBatcher(RestTemplate restTemplate, ObjectMapper objectMapper,
+                      ExecutorService timerExecutor, ExecutorService callExecutor,
+                      String batchUrl, Duration window, int maxSize, MeterRegistry meterRegistry,
+                      StageMetrics stageMetrics, DependencyGuard dependencies) {
+        this.restTemplate = restTemplate;
+        this.objectMapper = objectMapper;
+        this.timerExecutor = timerExecutor;
+        this.callExecutor = callExecutor;
+        this.batchUrl = batchUrl;
+        this.window = window;
+        this.maxSize = Math.max(1, maxSize);
+        this.batchSize = DistributionSummary.builder("prediction.batch.size")
+                .description("Forecast requests sent per predict-batch call")
+                .register(meterRegistry);
+        this.stageMetrics = stageMetrics;
+        this.dependencies = dependencies;
+    }
+
+    /**
+     * Queues a forecast. Returns the hook that aborts it: before the batch is
+     * sent the request is simply skipped, afterwards it releases the batch.
+     */
+    Runnable submit(String id, List<RouteResponseDTO.RouteDetail> routes,
+                    CompletableFuture<PredictionResponseDTO> result) {
+        Item item = new Item(id, routes, result);
+        List<Item> full = null;
+        long windowGeneration = -1;
+
+        synchronized (lock) {
+            pending.add(item);
+            if (pending.size() >= maxSize) {
+                full = takePending();
+            } else if (pending.size() == 1) {
+                windowGeneration = generation;
+            }
+        }
+
+        if (full != null) {
+            List<Item> batch = full;
+            timerExecutor.execute(() -> send(batch));
+        } else if (windowGeneration >= 0) {
+            long expected = windowGeneration;
+            timerExecutor.execute(() -> flushAfterWindow(expected));
+        }
+        return item::abort;
+    }
+
+    private void flushAfterWindow(long expectedGeneration) {
+        try {
+            Thread.sleep(window);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<Item> batch;
+        synchronized (lock) {
+            // A size-triggered flush already took this window's items
+            if (generation != expectedGeneration || pending.isEmpty()) return;
+            batch = takePending();
+        }
+        send(batch);
+    }
+
+    private List<Item> takePending() {
+        List<Item> taken = pending;
+        pending = new ArrayList<>();
+        generation++;
+        return taken;
+    }
+
+    private void send(List<Item> items) {
+        Batch batch = new Batch();
+        List<Item> live = new ArrayList<>(items.size());
+        for (Item item : items) {
+            if (item.join(batch)) live.add(item);
+        }
+        if (live.isEmpty()) return;
+
+        try {
+            batch.call = callExecutor.submit(() -> call(live));
+        } catch (RejectedExecutionException e) {
+            log.warn("[PREDICT] Batch of {} refused: {}", live.size(), e.getMessage());
+            for (Item item : live) {
+                item.result.completeExceptionally(e);
+            }
+            return;
+        }
+        batch.armed();
+    }
+
+    private void call(List<Item> items) {
+        batchSize.record(items.size());
+        RouteStageEvent event = RouteStageEvent.start("predict_batch", false);
+        List<Map<String, Object>> requests = new ArrayList<>(items.size());
+        for (Item item : items) {
+            requests.add(Map.of("id", item.id, "routes", item.routes));
+            event.routes(item.routes);
+        }
+
+        try {
+            log.info("[PREDICT] Sending batch of {} to: {}", items.size(), batchUrl);
+            Object raw = stageMetrics.record("predict_batch", () -> dependencies.call(DependencyGuard.PREDICT,
+                    () -> restTemplate.postForObject(batchUrl, Map.of("requests", requests), Object.class)));
+            BatchPredictionResponseDTO response = objectMapper.convertValue(raw, BatchPredictionResponseDTO.class);
+            log.info("[PREDICT] Batch response received | status={} | results={}",
+                    response.getStatus(), response.getResults() != null ? response.getResults().size() : "null");
+
+            for (Item item : items) {
+                item.result.complete(response.toPrediction(item.id));
+            }
+            event.succeeded();
+        } catch (RestClientException | DependencyUnavailableException | IllegalArgumentException e) {
+            log.error("[PREDICT] Batch of {} failed: {}", items.size(), e.getMessage());
+            for (Item item : items) {
+                item.result.completeExceptionally(e);
+            }
+        } finally {
+            event.finish();
+            // Anything else thrown above would leave the jobs waiting until their deadline
+            for (Item item : items) {
+                if (!item.result.isDone()) {
+                    item.result.completeExceptionally(
+                            new IllegalStateException("Batch call ended without a forecast for " + item.id));
+                    log.warn("[PREDICT] Forecast {} did not complete", item.id);
+                }
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Batch bookkeeping
+    // -------------------------------------------------------------------------
+
+    private static final class Item {
+
+        private final String id;
+        private final List<RouteResponseDTO.RouteDetail> routes;
+        private final CompletableFuture<PredictionResponseDTO> result;
+        private final AtomicBoolean released = new AtomicBoolean();
+        private volatile Batch batch;
+
+        Item(String id, List<RouteResponseDTO.RouteDetail> routes,
+             CompletableFuture<PredictionResponseDTO> result) {
+            this.id = id;
+            this.routes = routes;
+            this.result = result;
+        }
+
+        /** Joins the batch unless already cancelled; false means skip it. */
+        boolean join(Batch target) {
+            target.live.incrementAndGet();
+            this.batch = target;
+            if (result.isCancelled()) {
+                release();
+                return false;
+            }
+            return true;
+        }
+
+        void abort() {
+            if (batch != null) release();
+        }
+
+        private void release() {
+            Batch current = batch;
+            if (current != null && released.compareAndSet(false, true)) {
+                current.release();
+            }
+        }
+    }
+
+    private static final class Batch {
+
+        private final AtomicInteger live = new AtomicInteger();
+        private volatile Future<?> call;
+        private volatile boolean armed;
+
+        void armed() {
+            armed = true;
+            if (live.get() == 0) cancelCall();
+        }
+
+        void release() {
+            if (live.decrementAndGet() == 0 && armed) cancelCall();
+        }
+
+        private void cancelCall() {
+            Future<?> running = call;
+            if (running != null) running.cancel(true);
+        }
+    }
+}
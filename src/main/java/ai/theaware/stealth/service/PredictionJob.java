@@ -0,0 +1,71 @@
+package ai.theaware.stealth.service;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import ai.theaware.stealth.dto.PredictionResponseDTO;
+
+/**
+ * One user's request for a forecast. The result future completes with the
+ * forecast, fails with the HTTP error, or is cancelled when the job is
+ * superseded, evicted or runs past the pipeline deadline. The forecast
+ * itself may be shared with other jobs; cancelling a job only drops its
+ * reference, and the HTTP call stops once no job is left waiting for it.
+ */
+public final class PredictionJob {
+
+    private final String id = UUID.randomUUID().toString();
+    private final String userEmail;
+    private final Instant createdAt = Instant.now();
+    private final CompletableFuture<PredictionResponseDTO> result = new CompletableFuture<>();
+    private volatile Runnable release;
+
+    PredictionJob(String userEmail) {
+        this.userEmail = userEmail;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getUserEmail() {
+        return userEmail;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public CompletableFuture<PredictionResponseDTO> getResult() {
+        return result;
+    }
+
+    public boolean isCancelled() {
+        return result.isCancelled();
+    }
+
+    /**
+     * Follows the shared forecast. Called once, before the job is published,
+     * so {@link #cancel()} always sees {@code release}.
+     */
+    void linkTo(CompletableFuture<PredictionResponseDTO> forecast, Runnable release) {
+        this.release = release;
+        forecast.whenComplete((value, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(value);
+            }
+        });
+    }
+
+    void cancel() {
+        if (result.cancel(false)) {
+            Runnable onCancel = release;
+            if (onCancel != null) {
+                onCancel.run();
+            }
+        }
+    }
+}
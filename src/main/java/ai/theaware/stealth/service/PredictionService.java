@@ -1,23 +1,66 @@
 package ai.theaware.stealth.service;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
 
+import ai.theaware.stealth.config.RefreshingCacheManager;
+import ai.theaware.stealth.dto.PackedPolyline;
 import ai.theaware.stealth.dto.PredictionResponseDTO;
 import ai.theaware.stealth.dto.RouteResponseDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Forecast jobs for the AI service's predict-all-stations endpoint.
+ *
+ * Every route request starts a {@link PredictionJob}; its id is returned by
+ * /process and can be polled or awaited via /predict/{jobId}. Jobs live in a
+ * bounded Caffeine store ({@code app.prediction.job-ttl},
+ * {@code app.prediction.max-jobs}). Starting a new job cancels the user's
+ * previous one, and a job evicted before it finishes is cancelled too since
+ * nobody can read it any more.
+ *
+ * The forecast itself depends only on the route geometry and the hour it is
+ * made in, so jobs are backed by a {@link SharedForecast} keyed by a hash of
+ * the resampled geometry plus the forecast hour. Concurrent and repeated
+ * requests for the same corridor within an hour share one HTTP call; the call
+ * is cancelled once no job references it any more. The hour turns over
+ * {@code app.cache.forecast.publish-delay} after the top of the hour, the same
+ * boundary the route caches expire on.
+ *
+ * New forecasts are micro-batched by {@link PredictionBatcher} when
+ * {@code app.ai.predict-batch-url} is set, so a burst of different corridors
+ * still costs one station model run.
+ *
+ *   prediction.forecasts{result="computed|reused"}
+ *   prediction.forecast.reuse.ratio
+ */
 @Service
 @Slf4j
 public class PredictionService {
@@ -25,28 +68,186 @@ public class PredictionService {
     @Value("${app.ai.predict-url}")
     private String predictUrl;
 
-    private final ConcurrentHashMap<String, PredictionResponseDTO> completedPredictions = new ConcurrentHashMap<>();
+    @Value("${app.cache.forecast.publish-delay:5m}")
+    private Duration forecastPublishDelay;
 
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper;
-    private final ConcurrentHashMap<String, CompletableFuture<PredictionResponseDTO>> pendingPredictions =
-            new ConcurrentHashMap<>();
+    private final ExecutorService pipelineExecutor;
+    private final PriorityTaskExecutor lanes;
+    private final Cache<String, PredictionJob> jobs;
+    private final Cache<String, String> latestJobByUser;
+    private final Cache<ForecastKey, SharedForecast> sharedForecasts;
+    private final Counter supersededJobs;
+    private final Counter computedForecasts;
+    private final Counter reusedForecasts;
+    private final PredictionBatcher batcher;
+    private final StageMetrics stageMetrics;
+    private final DependencyGuard dependencies;
+    private final MeterRegistry meterRegistry;
 
-    public PredictionService(RestTemplate restTemplate) {
+    public PredictionService(
+            RestTemplate restTemplate,
+            @Qualifier("routePipelineExecutor") ExecutorService pipelineExecutor,
+            PriorityTaskExecutor lanes,
+            @Value("${app.prediction.job-ttl:10m}") Duration jobTtl,
+            @Value("${app.prediction.max-jobs:10000}") long maxJobs,
+            @Value("${app.ai.predict-batch-url:}") String predictBatchUrl,
+            @Value("${app.prediction.batch.window:100ms}") Duration batchWindow,
+            @Value("${app.prediction.batch.max-size:32}") int batchMaxSize,
+            MeterRegistry meterRegistry,
+            StageMetrics stageMetrics,
+            DependencyGuard dependencies
+    ) {
         this.restTemplate = restTemplate;
         this.objectMapper = new ObjectMapper();
+        this.pipelineExecutor = pipelineExecutor;
+        this.lanes = lanes;
+        this.stageMetrics = stageMetrics;
+        this.dependencies = dependencies;
+        this.meterRegistry = meterRegistry;
+        this.jobs = Caffeine.newBuilder()
+                .expireAfterWrite(jobTtl)
+                .maximumSize(maxJobs)
+                .removalListener((String id, PredictionJob job, RemovalCause cause) -> {
+                    if (job != null && cause.wasEvicted() && !job.getResult().isDone()) {
+                        log.info("[PREDICT] Job {} evicted ({}) before completion, cancelling", id, cause);
+                        job.cancel();
+                    }
+                })
+                .build();
+        this.latestJobByUser = Caffeine.newBuilder()
+                .expireAfterWrite(jobTtl)
+                .maximumSize(maxJobs)
+                .build();
+        // Keys carry the hour, so an entry is never reused past its hour; the TTL only bounds memory
+        this.sharedForecasts = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofHours(1))
+                .maximumSize(maxJobs)
+                .build();
+
+        this.supersededJobs = Counter.builder("prediction.jobs.superseded")
+                .description("In-flight prediction jobs cancelled because the user started a newer one")
+                .register(meterRegistry);
+        Gauge.builder("prediction.jobs.stored", jobs, Cache::estimatedSize)
+                .description("Prediction jobs held in the job store")
+                .register(meterRegistry);
+        this.computedForecasts = Counter.builder("prediction.forecasts")
+                .description("Prediction jobs by whether they started a forecast or reused one")
+                .tag("result", "computed")
+                .register(meterRegistry);
+        this.reusedForecasts = Counter.builder("prediction.forecasts")
+                .description("Prediction jobs by whether they started a forecast or reused one")
+                .tag("result", "reused")
+                .register(meterRegistry);
+        boolean batching = !predictBatchUrl.isBlank() && batchWindow.isPositive();
+        this.batcher = batching
+                ? new PredictionBatcher(restTemplate, objectMapper, pipelineExecutor, lanes.interactive(),
+                        predictBatchUrl, batchWindow, batchMaxSize, meterRegistry, stageMetrics, dependencies)
+                : null;
+        log.info("[PREDICT] Forecast batching {}", batching
+                ? "enabled (window " + batchWindow + ", max " + batchMaxSize + ")" : "disabled");
+    }
+
+    /** Gauges on this service itself, registered once it is fully constructed. */
+    @PostConstruct
+    void registerGauges() {
+        Gauge.builder("prediction.forecast.reuse.ratio", this, PredictionService::reuseRatio)
+                .description("Share of prediction jobs served by an existing forecast")
+                .register(meterRegistry);
     }
 
-    @Async
-    public void triggerPrediction(String userEmail, Double sLat, Double sLon, Double dLat, Double dLon,
+    /**
+     * Creates and stores a job for the user, links it to the shared forecast
+     * for this geometry and hour (starting the call if there is none), and
+     * cancels the user's previous job. Returns once the job id is pollable;
+     * the HTTP call runs on a route pipeline thread.
+     */
+    public PredictionJob startJob(String userEmail, Double sLat, Double sLon, Double dLat, Double dLon,
                                   List<RouteResponseDTO.RouteDetail> routes) {
-        log.info("[PREDICT] triggerPrediction called for user: {}", userEmail);
+        Instant hour = Instant.ofEpochMilli(
+                RefreshingCacheManager.forecastHour(System.currentTimeMillis(), forecastPublishDelay));
+        ForecastKey key = new ForecastKey(geometryHash(routes), hour);
+        PredictionJob job = new PredictionJob(userEmail);
+        SharedForecast shared = acquire(key);
+
+        if (shared.claimStart()) {
+            computedForecasts.increment();
+            shared.attach(startForecast(shared, sLat, sLon, dLat, dLon, routes));
+        } else {
+            reusedForecasts.increment();
+            log.info("[PREDICT] Job {} reuses forecast {}", job.getId(), key);
+            RouteStageEvent reuse = RouteStageEvent.start("predict", true).routes(routes);
+            reuse.succeeded();
+            reuse.finish();
+        }
+        job.linkTo(shared.result, () -> release(shared));
+
+        jobs.put(job.getId(), job);
+        String previousId = latestJobByUser.asMap().put(userEmail, job.getId());
+        PredictionJob previous = previousId != null ? jobs.getIfPresent(previousId) : null;
+        if (previous != null && !previous.getResult().isDone()) {
+            previous.cancel();
+            supersededJobs.increment();
+            log.info("[PREDICT] Job {} superseded by {} for user: {}", previousId, job.getId(), userEmail);
+        }
 
-        completedPredictions.remove(userEmail);
+        log.info("[PREDICT] Job {} registered for user: {} | Stored jobs: {}",
+                job.getId(), userEmail, jobs.estimatedSize());
+        return job;
+    }
+
+    /**
+     * Starts the call for a new shared forecast, batched when a batch endpoint
+     * is configured. Returns the hook that aborts it. An unbatched call runs
+     * under the starting request's {@link Deadline}; a batch serves several
+     * requests and only has the adaptive timeout.
+     */
+    private Runnable startForecast(SharedForecast shared,
+                                   Double sLat, Double sLon, Double dLat, Double dLon,
+                                   List<RouteResponseDTO.RouteDetail> routes) {
+        // Only successful forecasts are worth sharing; let the next request retry the rest
+        shared.result.whenComplete((forecast, error) -> {
+            if (!shared.reusable()) {
+                sharedForecasts.asMap().remove(shared.key, shared);
+            }
+        });
+
+        if (batcher != null) {
+            return batcher.submit(shared.key.toString(), routes, shared.result);
+        }
+
+        // A task dropped from a full lane never runs; cancel the forecast so its jobs see it
+        Instant deadline = Deadline.current();
+        FutureTask<Void> task = new FutureTask<>(() -> Deadline.within(deadline, () -> {
+            runForecast(shared, sLat, sLon, dLat, dLon, routes);
+            return null;
+        })) {
+            @Override
+            protected void done() {
+                if (isCancelled()) shared.result.cancel(false);
+            }
+        };
+        try {
+            lanes.interactive().execute(task);
+        } catch (RejectedExecutionException e) {
+            log.warn("[PREDICT] Interactive lane full, forecast {} refused", shared.key);
+            shared.result.completeExceptionally(e);
+        }
+        return () -> task.cancel(true);
+    }
 
-        CompletableFuture<PredictionResponseDTO> future = new CompletableFuture<>();
-        pendingPredictions.put(userEmail, future);
-        log.info("[PREDICT] Future registered for user: {} | Active predictions: {}", userEmail, pendingPredictions.size());
+    /**
+     * Blocking prediction call; runs in the interactive lane. Interrupting
+     * that thread aborts the HTTP call and the forecast ends up cancelled.
+     */
+    private void runForecast(SharedForecast shared,
+                             Double sLat, Double sLon, Double dLat, Double dLon,
+                             List<RouteResponseDTO.RouteDetail> routes) {
+        CompletableFuture<PredictionResponseDTO> future = shared.result;
+        log.info("[PREDICT] runForecast called for {}", shared.key);
+        RouteStageEvent event = RouteStageEvent.start("predict", true).routes(routes);
+        RouteStageEvent.markCache("miss");
 
         try {
             Map<String, Object> payload = Map.of(
@@ -58,7 +259,8 @@ public class PredictionService {
             );
 
             log.info("[PREDICT] Sending request to: {}", predictUrl);
-            Object raw = restTemplate.postForObject(predictUrl, payload, Object.class);
+            Object raw = stageMetrics.record("predict", () -> dependencies.call(DependencyGuard.PREDICT,
+                    () -> restTemplate.postForObject(predictUrl, payload, Object.class)));
             log.info("[PREDICT] Raw response received, converting to DTO...");
 
             PredictionResponseDTO dto = objectMapper.convertValue(raw, PredictionResponseDTO.class);
@@ -68,55 +270,210 @@ public class PredictionService {
                     dto.getRouteForecasts() != null ? dto.getRouteForecasts().size() : "null");
 
             future.complete(dto);
-            log.info("[PREDICT] Future completed for user: {}", userEmail);
+            event.succeeded();
+            log.info("[PREDICT] Forecast {} completed", shared.key);
 
         } catch (RestClientException e) {
+            if (future.isCancelled()) {
+                log.info("[PREDICT] Forecast {} cancelled during HTTP call", shared.key);
+                return;
+            }
             future.completeExceptionally(e);
-            log.error("[PREDICT] HTTP error for user {}: {}", userEmail, e.getMessage());
+            log.error("[PREDICT] HTTP error for {}: {}", shared.key, e.getMessage());
+        } catch (DependencyUnavailableException e) {
+            future.completeExceptionally(e);
+            log.warn("[PREDICT] Forecast {} not requested: {}", shared.key, e.getMessage());
         } catch (IllegalArgumentException e) {
             future.completeExceptionally(e);
-            log.error("[PREDICT] Unexpected error for user {}: {}", userEmail, e.getMessage(), e);
+            log.error("[PREDICT] Unexpected error for {}: {}", shared.key, e.getMessage(), e);
+        } finally {
+            event.finish();
+            if (!future.isDone()) {
+                shared.cancel();
+                log.warn("[PREDICT] Forecast {} did not complete", shared.key);
+            }
         }
     }
 
-    public PredictionResponseDTO getPrediction(String userEmail) {
-        PredictionResponseDTO cached = completedPredictions.get(userEmail);
-        if (cached != null) {
-            log.info("[PREDICT] Returning cached result for user: {}", userEmail);
-            return cached;
+    // -------------------------------------------------------------------------
+    // Shared forecasts
+    // -------------------------------------------------------------------------
+
+    private record ForecastKey(long geometryHash, Instant hour) {
+        @Override
+        public String toString() {
+            return Long.toHexString(geometryHash) + "@" + hour;
+        }
+    }
+
+    /**
+     * One predict-all-stations call shared by every job for the same key.
+     * {@code refs} is only changed inside {@code sharedForecasts} compute
+     * calls, which serialise per key.
+     */
+    private static final class SharedForecast {
+
+        private final ForecastKey key;
+        private final CompletableFuture<PredictionResponseDTO> result = new CompletableFuture<>();
+        private final AtomicBoolean started = new AtomicBoolean();
+        private int refs;
+        private volatile Runnable abort;
+
+        SharedForecast(ForecastKey key) {
+            this.key = key;
         }
 
-        CompletableFuture<PredictionResponseDTO> future = pendingPredictions.get(userEmail);
+        /** True for the first caller only: that caller must start the call. */
+        boolean claimStart() {
+            return started.compareAndSet(false, true);
+        }
 
-        if (future == null) {
-            log.warn("[PREDICT] No future found for user: {}", userEmail);
-            PredictionResponseDTO err = new PredictionResponseDTO();
-            err.setStatus("error");
-            return err;
+        /** Still running, or finished with a successful forecast. */
+        boolean reusable() {
+            if (!result.isDone()) return true;
+            if (result.isCompletedExceptionally()) return false;
+            return "success".equals(result.getNow(null).getStatus());
         }
 
-        log.info("[PREDICT] Future found for user: {} | isDone={} | isCancelled={}", 
-                userEmail, future.isDone(), future.isCancelled());
+        void attach(Runnable abort) {
+            this.abort = abort;
+            if (result.isCancelled()) {
+                abort.run();
+            }
+        }
 
+        void cancel() {
+            result.cancel(false);
+            Runnable running = abort;
+            if (running != null) {
+                running.run();
+            }
+        }
+    }
+
+    private SharedForecast acquire(ForecastKey key) {
+        return sharedForecasts.asMap().compute(key, (k, existing) -> {
+            SharedForecast shared = existing != null && existing.reusable() ? existing : new SharedForecast(k);
+            shared.refs++;
+            return shared;
+        });
+    }
+
+    /** Drops one job's reference; the last one out cancels a forecast that is still running. */
+    private void release(SharedForecast shared) {
+        AtomicBoolean orphaned = new AtomicBoolean();
+        sharedForecasts.asMap().compute(shared.key, (k, current) -> {
+            shared.refs--;
+            if (shared.refs <= 0 && !shared.result.isDone()) {
+                orphaned.set(true);
+                return current == shared ? null : current;
+            }
+            return current;
+        });
+        if (orphaned.get()) {
+            shared.cancel();
+            log.info("[PREDICT] Forecast {} cancelled, no jobs left waiting for it", shared.key);
+        }
+    }
+
+    /**
+     * Stops finished forecasts from being shared, for when new station data
+     * lands within the hour. Forecasts still running are left to their jobs.
+     *
+     * @return the number of forecasts dropped
+     */
+    public int dropCompletedForecasts() {
+        int[] dropped = new int[1];
+        sharedForecasts.asMap().values().removeIf(shared -> {
+            if (!shared.result.isDone()) return false;
+            dropped[0]++;
+            return true;
+        });
+        return dropped[0];
+    }
+
+    private double reuseRatio() {
+        double total = computedForecasts.count() + reusedForecasts.count();
+        return total == 0 ? 0.0 : reusedForecasts.count() / total;
+    }
+
+    /** 64-bit FNV-1a over every resampled coordinate, route by route. */
+    static long geometryHash(List<RouteResponseDTO.RouteDetail> routes) {
+        long hash = 0xcbf29ce484222325L;
+        for (RouteResponseDTO.RouteDetail route : routes) {
+            PackedPolyline path = route.getCoordinates();
+            hash = fnvMix(hash, path.size());
+            for (int i = 0; i < path.size(); i++) {
+                hash = fnvMix(hash, Double.doubleToLongBits(path.lat(i)));
+                hash = fnvMix(hash, Double.doubleToLongBits(path.lng(i)));
+            }
+        }
+        return hash;
+    }
+
+    private static long fnvMix(long hash, long value) {
+        for (int shift = 0; shift < 64; shift += 8) {
+            hash ^= (value >>> shift) & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /** The job, if it is still stored and belongs to the user. */
+    public Optional<PredictionJob> findJob(String userEmail, String jobId) {
+        return Optional.ofNullable(jobs.getIfPresent(jobId))
+                .filter(job -> job.getUserEmail().equals(userEmail));
+    }
+
+    /**
+     * Waits up to {@code wait} for the job. Returns the forecast, or a DTO with
+     * status "pending", "cancelled" or "error".
+     */
+    public PredictionResponseDTO awaitJob(PredictionJob job, Duration wait) {
         try {
-            PredictionResponseDTO result = future.get(30, java.util.concurrent.TimeUnit.SECONDS);
-            pendingPredictions.remove(userEmail);
-            completedPredictions.put(userEmail, result);
-            log.info("[PREDICT] Successfully retrieved prediction for user: {} | status={}", userEmail, result.getStatus());
+            PredictionResponseDTO result = job.getResult().get(wait.toMillis(), TimeUnit.MILLISECONDS);
+            log.info("[PREDICT] Job {} result retrieved | status={}", job.getId(), result.getStatus());
             return result;
 
-        } catch (java.util.concurrent.TimeoutException e) {
-            log.warn("[PREDICT] Timeout for user: {}", userEmail);
-            PredictionResponseDTO pending = new PredictionResponseDTO();
-            pending.setStatus("pending");
-            return pending;
+        } catch (TimeoutException e) {
+            return statusOnly("pending");
+
+        } catch (CancellationException e) {
+            return statusOnly("cancelled");
+
+        } catch (ExecutionException e) {
+            log.error("[PREDICT] Job {} failed: {}", job.getId(), e.getCause().getMessage());
+            return statusOnly("error");
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return statusOnly("error");
+        }
+    }
+
+    /** Latest job for the user, awaited for up to 30 s (legacy /predict). */
+    public PredictionResponseDTO getPrediction(String userEmail) {
+        String jobId = latestJobByUser.getIfPresent(userEmail);
+        PredictionJob job = jobId != null ? jobs.getIfPresent(jobId) : null;
 
-        } catch (InterruptedException | ExecutionException e) {
-            pendingPredictions.remove(userEmail);
-            log.error("[PREDICT] Error for user {}: {}", userEmail, e.getMessage(), e);
-            PredictionResponseDTO err = new PredictionResponseDTO();
-            err.setStatus("error");
-            return err;
+        if (job == null) {
+            log.warn("[PREDICT] No job found for user: {}", userEmail);
+            return statusOnly("error");
         }
+
+        log.info("[PREDICT] Job {} found for user: {} | isDone={} | isCancelled={}",
+                job.getId(), userEmail, job.getResult().isDone(), job.isCancelled());
+
+        PredictionResponseDTO result = awaitJob(job, Duration.ofSeconds(30));
+        if ("cancelled".equals(result.getStatus())) {
+            result.setStatus("error");
+        }
+        return result;
+    }
+
+    private static PredictionResponseDTO statusOnly(String status) {
+        PredictionResponseDTO dto = new PredictionResponseDTO();
+        dto.setStatus(status);
+        return dto;
     }
-}
\ No newline at end of file
+}
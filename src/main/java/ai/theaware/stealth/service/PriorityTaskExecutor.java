@@ -0,0 +1,229 @@
+package ai.theaware.stealth.service;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounded lanes for the route pipeline's outbound work. Tasks run on
+ * virtual threads, but each lane caps how many run at once and how many may
+ * wait, so one slow AI service backs up its own lane instead of piling up
+ * unbounded threads and connections.
+ *
+ *   interactive – work a user is waiting on (AI analysis, forecasts)
+ *   background  – work nobody waits on (history writes, refreshes)
+ *
+ * When a lane's queue is full its overflow policy applies:
+ *   reject      – the new task is refused; the caller degrades
+ *   drop-oldest – the longest-queued task is cancelled to make room
+ *
+ *   executor.lane.queue.depth{lane}, executor.lane.active{lane}
+ *   executor.lane.wait{lane}, executor.lane.rejected{lane}
+ */
+@Component
+@Slf4j
+public class PriorityTaskExecutor {
+
+    public enum OverflowPolicy {
+        REJECT, DROP_OLDEST;
+
+        static OverflowPolicy parse(String value) {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        }
+    }
+
+    private final Lane interactive;
+    private final Lane background;
+
+    public PriorityTaskExecutor(
+            @Value("${app.executor.interactive.max-concurrency:64}") int interactiveConcurrency,
+            @Value("${app.executor.interactive.queue-capacity:256}") int interactiveQueue,
+            @Value("${app.executor.interactive.overflow:reject}") String interactiveOverflow,
+            @Value("${app.executor.background.max-concurrency:8}") int backgroundConcurrency,
+            @Value("${app.executor.background.queue-capacity:64}") int backgroundQueue,
+            @Value("${app.executor.background.overflow:drop-oldest}") String backgroundOverflow,
+            MeterRegistry meterRegistry
+    ) {
+        this.interactive = new Lane("interactive", interactiveConcurrency, interactiveQueue,
+                OverflowPolicy.parse(interactiveOverflow), meterRegistry);
+        this.background = new Lane("background", backgroundConcurrency, backgroundQueue,
+                OverflowPolicy.parse(backgroundOverflow), meterRegistry);
+        log.info("[EXECUTOR] Lanes: {} | {}", interactive, background);
+    }
+
+    public ExecutorService interactive() {
+        return interactive;
+    }
+
+    public ExecutorService background() {
+        return background;
+    }
+
+    // -------------------------------------------------------------------------
+    // Lane
+    // -------------------------------------------------------------------------
+
+    private static final class Lane extends AbstractExecutorService {
+
+        private record Queued(Runnable task, long enqueuedAt) {}
+
+        private final String name;
+        private final int maxConcurrency;
+        private final int queueCapacity;
+        private final OverflowPolicy overflow;
+        private final ThreadFactory threads;
+        private final ArrayDeque<Queued> queue = new ArrayDeque<>();
+        private final Timer waitTimer;
+        private final Counter rejected;
+        private int running;
+        private volatile boolean shutdown;
+
+        Lane(String name, int maxConcurrency, int queueCapacity, OverflowPolicy overflow, MeterRegistry registry) {
+            this.name = name;
+            this.maxConcurrency = Math.max(1, maxConcurrency);
+            this.queueCapacity = Math.max(0, queueCapacity);
+            this.overflow = overflow;
+            this.threads = Thread.ofVirtual().name("lane-" + name + "-", 0).factory();
+
+            this.waitTimer = Timer.builder("executor.lane.wait")
+                    .description("Time each started task waited for a lane slot; zero when one was free")
+                    .tag("lane", name)
+                    .register(registry);
+            this.rejected = Counter.builder("executor.lane.rejected")
+                    .description("Tasks refused or dropped because the lane queue was full")
+                    .tags("lane", name, "policy", overflow.name().toLowerCase(Locale.ROOT))
+                    .register(registry);
+            Gauge.builder("executor.lane.queue.depth", this, Lane::queueDepth)
+                    .description("Tasks waiting for a lane slot")
+                    .tag("lane", name)
+                    .register(registry);
+            Gauge.builder("executor.lane.active", this, Lane::active)
+                    .description("Tasks currently running in the lane")
+                    .tag("lane", name)
+                    .register(registry);
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            if (shutdown) {
+                throw new RejectedExecutionException("Lane " + name + " is shut down");
+            }
+
+            Queued dropped = null;
+            synchronized (this) {
+                if (running < maxConcurrency) {
+                    running++;
+                } else if (queue.size() < queueCapacity) {
+                    queue.addLast(new Queued(task, System.nanoTime()));
+                    return;
+                } else if (overflow == OverflowPolicy.DROP_OLDEST && !queue.isEmpty()) {
+                    dropped = queue.pollFirst();
+                    queue.addLast(new Queued(task, System.nanoTime()));
+                } else {
+                    rejected.increment();
+                    throw new RejectedExecutionException("Lane " + name + " is full");
+                }
+            }
+
+            if (dropped != null) {
+                rejected.increment();
+                log.warn("[EXECUTOR] Lane {} full, dropped the oldest queued task", name);
+                if (dropped.task() instanceof Future<?> future) {
+                    future.cancel(false);
+                }
+                return;
+            }
+            // Zero wait still counts, so the histogram covers every task that ran
+            waitTimer.record(0, TimeUnit.NANOSECONDS);
+            start(task);
+        }
+
+        private void start(Runnable task) {
+            threads.newThread(() -> {
+                try {
+                    task.run();
+                } finally {
+                    next();
+                }
+            }).start();
+        }
+
+        /** Hands the finished task's slot to the next queued one, if any. */
+        private void next() {
+            Queued queued;
+            synchronized (this) {
+                queued = queue.pollFirst();
+                if (queued == null) {
+                    running--;
+                    return;
+                }
+            }
+            waitTimer.record(System.nanoTime() - queued.enqueuedAt(), TimeUnit.NANOSECONDS);
+            start(queued.task());
+        }
+
+        private synchronized int queueDepth() {
+            return queue.size();
+        }
+
+        private synchronized int active() {
+            return running;
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            shutdown = true;
+            synchronized (this) {
+                List<Runnable> pending = queue.stream().map(Queued::task).toList();
+                queue.clear();
+                return pending;
+            }
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public synchronized boolean isTerminated() {
+            return shutdown && running == 0;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            while (!isTerminated()) {
+                if (System.nanoTime() >= deadline) return false;
+                Thread.sleep(10);
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return name + "(concurrency " + maxConcurrency + ", queue " + queueCapacity + ", "
+                    + overflow.name().toLowerCase(Locale.ROOT).replace('_', '-') + ")";
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package ai.theaware.stealth.service;
+
+import java.time.Duration;
+
+/**
+ * A Google call that {@link GoogleQuota} refused: the user's or the global
+ * token bucket is empty, or the daily budget is nearly spent and only cached
+ * routes are served. Nothing was sent.
+ */
+public class QuotaExceededException extends DependencyUnavailableException {
+
+    private final String scope;
+    private final Duration retryAfter;
+
+    public QuotaExceededException(String dependency, String scope, Duration retryAfter) {
+        super(dependency, scope + " quota exhausted, retry in " + retryAfter.toSeconds() + "s");
+        this.scope = scope;
+        this.retryAfter = retryAfter;
+    }
+
+    /** {@code user}, {@code global} or {@code budget}. */
+    public String getScope() {
+        return scope;
+    }
+
+    /** Refused for the calling user alone; another user's call would be let through. */
+    public boolean isUserScope() {
+        return "user".equals(scope);
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,145 @@
+package ai.theaware.stealth.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import ai.theaware.stealth.dto.RouteAnalysis;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.core.exc.StreamReadException;
+import tools.jackson.databind.DeserializationFeature;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectReader;
+
+/**
+ * Single-pass streaming parser for the analyze-routes response.
+ *
+ * Per-point {@code aqi} and {@code pm25} go straight into primitive arrays
+ * while each {@code details} array is skipped over and kept as a slice of the
+ * input; no map is built per point. Other fields are small and are read with
+ * the regular object mapper.
+ */
+final class RouteAnalysisParser {
+
+    private final ObjectMapper objectMapper;
+    private final ObjectReader valueReader;
+
+    RouteAnalysisParser(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        // Reads one value mid-stream, so what follows it is not "trailing"
+        this.valueReader = objectMapper.readerFor(Object.class)
+                .without(DeserializationFeature.FAIL_ON_TRAILING_TOKENS);
+    }
+
+    RouteAnalysis parse(byte[] json) throws JacksonException {
+        try (JsonParser parser = objectMapper.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new StreamReadException(parser, "AI response is not a JSON object");
+            }
+
+            Map<String, Object> fields = new LinkedHashMap<>();
+            Map<String, RouteAnalysis.Route> routes = null;
+            while (parser.nextToken() == JsonToken.PROPERTY_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (RouteAnalysis.ROUTE_ANALYSIS.equals(name) && value == JsonToken.START_OBJECT) {
+                    routes = readRoutes(parser, json);
+                    fields.put(name, routes);
+                } else {
+                    fields.put(name, valueReader.readValue(parser));
+                }
+            }
+            return new RouteAnalysis(fields, routes);
+        }
+    }
+
+    private Map<String, RouteAnalysis.Route> readRoutes(JsonParser parser, byte[] json) {
+        Map<String, RouteAnalysis.Route> routes = new LinkedHashMap<>();
+        while (parser.nextToken() == JsonToken.PROPERTY_NAME) {
+            String routeId = parser.currentName();
+            if (parser.nextToken() == JsonToken.START_OBJECT) {
+                routes.put(routeId, readRoute(parser, json));
+            } else {
+                parser.skipChildren();
+                routes.put(routeId, RouteAnalysis.Route.empty());
+            }
+        }
+        return routes;
+    }
+
+    private RouteAnalysis.Route readRoute(JsonParser parser, byte[] json) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        String rawDetails = null;
+        DoubleBuffer aqi = new DoubleBuffer();
+        DoubleBuffer pm25 = new DoubleBuffer();
+
+        while (parser.nextToken() == JsonToken.PROPERTY_NAME) {
+            String name = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("details".equals(name) && value == JsonToken.START_ARRAY) {
+                int start = (int) parser.currentTokenLocation().getByteOffset();
+                readDetails(parser, aqi, pm25);
+                int end = (int) parser.currentTokenLocation().getByteOffset() + 1;
+                rawDetails = new String(json, start, end - start, StandardCharsets.UTF_8);
+            } else {
+                fields.put(name, valueReader.readValue(parser));
+            }
+        }
+        return new RouteAnalysis.Route(fields, rawDetails, aqi.toArray(), pm25.toArray());
+    }
+
+    /** Reads up to the closing bracket of a details array. */
+    private static void readDetails(JsonParser parser, DoubleBuffer aqi, DoubleBuffer pm25) {
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            while (parser.nextToken() == JsonToken.PROPERTY_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (value.isStructStart()) {
+                    // Also a nested aqi/pm25: not a reading, but keep our place
+                    parser.skipChildren();
+                } else if ("aqi".equals(name)) {
+                    // The AQI has always been accepted as a numeric string too
+                    if (value.isNumeric()) {
+                        aqi.add(parser.getDoubleValue());
+                    } else if (value == JsonToken.VALUE_STRING) {
+                        addParsed(aqi, parser.getString());
+                    }
+                } else if ("pm25".equals(name) && value.isNumeric()) {
+                    pm25.add(parser.getDoubleValue());
+                }
+            }
+        }
+    }
+
+    private static void addParsed(DoubleBuffer buffer, String text) {
+        try {
+            buffer.add(Double.parseDouble(text));
+        } catch (NumberFormatException e) {
+            // Not a number: the point has no AQI
+        }
+    }
+
+    /** Growable double[]; trimmed on {@link #toArray()}. */
+    private static final class DoubleBuffer {
+
+        private double[] values = new double[64];
+        private int size;
+
+        void add(double value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        double[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package ai.theaware.stealth.service;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import ai.theaware.stealth.dto.RouteAnalysis;
+import ai.theaware.stealth.dto.RouteCacheKey;
+import ai.theaware.stealth.dto.RouteDirections;
+import lombok.extern.slf4j.Slf4j;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Stage 2 of the route pipeline: the AI service's analyze-routes call,
+ * cached per snapped cell pair in {@code route_ai_analysis}.
+ *
+ * Failures are thrown, not cached, so the next request retries the AI service.
+ * The call goes through {@link DependencyGuard} ({@code ai_analysis}); while
+ * its breaker is open the cache serves the last good analysis for the key
+ * (stale-if-error, see {@link ai.theaware.stealth.config.RefreshingCacheManager}).
+ */
+@Service
+@Slf4j
+public class RouteAnalysisService {
+
+    @Value("${app.ai.service.url}")
+    private String aiAnalyzeUrl;
+
+    private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper;
+    private final RouteAnalysisParser parser;
+    private final StageMetrics stageMetrics;
+    private final DependencyGuard dependencies;
+
+    public RouteAnalysisService(RestTemplate restTemplate, StageMetrics stageMetrics, DependencyGuard dependencies) {
+        this.restTemplate = restTemplate;
+        this.stageMetrics = stageMetrics;
+        this.dependencies = dependencies;
+        this.objectMapper = JsonMapper.builder().build();
+        this.parser = new RouteAnalysisParser(objectMapper);
+    }
+
+    /**
+     * Returns the parsed AI response. The instance is shared by every cache
+     * hit and must not be mutated by callers.
+     */
+    @Cacheable(value = "route_ai_analysis", key = "#key", sync = true)
+    public RouteAnalysis analyze(RouteCacheKey key, double sLat, double sLon, double dLat, double dLon,
+                                       RouteDirections directions) throws RestClientException {
+        log.info("[CACHE MISS] AI analysis for {}", key);
+        RouteStageEvent.markCache("miss");
+
+        Map<String, Object> aiRequest = Map.of(
+                "start_loc", List.of(sLat, sLon),
+                "end_loc", List.of(dLat, dLon),
+                "routeCount", directions.getResampled().getRouteCount(),
+                "routes", directions.getResampled().getRoutes()
+        );
+
+        logJsonPayload(aiRequest);
+
+        // Parsed inside the guard, so an empty or malformed answer counts against the breaker
+        return stageMetrics.record("ai_analysis", () -> dependencies.call(DependencyGuard.AI_ANALYSIS,
+                () -> parse(restTemplate.postForObject(aiAnalyzeUrl, aiRequest, byte[].class))));
+    }
+
+    private RouteAnalysis parse(byte[] rawAiResponse) {
+        if (rawAiResponse == null || rawAiResponse.length == 0) {
+            throw new RestClientException("Empty response from AI service");
+        }
+        try {
+            return parser.parse(rawAiResponse);
+        } catch (JacksonException e) {
+            throw new RestClientException("Malformed response from AI service: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    /** Debug aid only: serialising the full payload costs as much as sending it. */
+    private void logJsonPayload(Object payload) {
+        if (!log.isDebugEnabled()) return;
+        try {
+            String json = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(payload);
+            log.debug("\n==============================\nSENDING TO AI SERVICE:\n{}\n==============================", json);
+        } catch (JacksonException e) {
+            log.warn("Could not log JSON payload: {}", e.getMessage());
+        }
+    }
+}
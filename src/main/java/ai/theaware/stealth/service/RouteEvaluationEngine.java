@@ -0,0 +1,290 @@
+package ai.theaware.stealth.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import ai.theaware.stealth.dto.RouteSet;
+
+/**
+ * Scoring, ranking and health metrics for one {@link RouteSet}, from one set
+ * of per-route reductions over the point columns. The reductions run on
+ * {@link ExposureKernel} (SIMD when the Vector API module is present).
+ *
+ * Produces the same quantities as {@link RouteScoringService#computeScores}
+ * followed by {@link RouteHealthMetricsService#compute}:
+ *
+ *   E_r = sum((AQI/300)^2) * T_r / n_r
+ *   J_r = (1-w)*(T_r/mean(T)) + w*(E_r/mean(E))
+ *
+ * and, for the best-scoring route against the worst-exposure alternative,
+ * exposure reduction %, PM2.5 avoided and equivalent minutes. Durations are
+ * Google's seconds rather than the parsed "1 hour 5 mins" text the health
+ * metrics used before.
+ */
+public final class RouteEvaluationEngine {
+
+    private static final ExposureKernel KERNEL = ExposureKernel.INSTANCE;
+    private static final double VENTILATION_RATE = 0.012; // m³/min
+
+    private RouteEvaluationEngine() {
+        // Utility class
+    }
+
+    /**
+     * A route no other alternative beats on both time and exposure, with the
+     * weights at which it has the lowest score. {@code weightFrom} and
+     * {@code weightTo} are {@code NaN} when it never wins outright (it lies
+     * between two better trade-offs).
+     */
+    public record Tradeoff(String routeId, double minutes, double exposure,
+                           double weightFrom, double weightTo) {
+
+        public boolean wins() {
+            return !Double.isNaN(weightFrom);
+        }
+    }
+
+    /** Output of {@link #evaluate}; arrays are indexed like the input set. */
+    public static final class Result {
+
+        private final RouteSet routes;
+        private final double[] minutes;
+        private final double[] exposure;
+        private final double[] normalizedTime;
+        private final double[] normalizedExposure;
+        private final double[] scores;
+        private final int[] ranking;
+        private final RouteHealthMetricsService.HealthMetrics health;
+
+        Result(RouteSet routes, double[] minutes, double[] exposure,
+               double[] normalizedTime, double[] normalizedExposure,
+               double[] scores, int[] ranking, RouteHealthMetricsService.HealthMetrics health) {
+            this.routes = routes;
+            this.minutes = minutes;
+            this.exposure = exposure;
+            this.normalizedTime = normalizedTime;
+            this.normalizedExposure = normalizedExposure;
+            this.scores = scores;
+            this.ranking = ranking;
+            this.health = health;
+        }
+
+        public double score(int route) {
+            return scores[route];
+        }
+
+        /** Route ids from best (lowest score) to worst. */
+        public List<String> ranked() {
+            List<String> ids = new ArrayList<>(ranking.length);
+            for (int route : ranking) ids.add(routes.routeId(route));
+            return ids;
+        }
+
+        /** Route id → score, in input order. */
+        public Map<String, Double> scoresById() {
+            Map<String, Double> byId = new LinkedHashMap<>();
+            for (int route = 0; route < scores.length; route++) {
+                byId.put(routes.routeId(route), scores[route]);
+            }
+            return byId;
+        }
+
+        /** Best route against the worst-exposure alternative; all zero with fewer than two routes. */
+        public RouteHealthMetricsService.HealthMetrics health() {
+            return health;
+        }
+
+        /**
+         * The Pareto-optimal routes, fastest first, each with the range of
+         * {@code w} in [0, 1] where it ranks first. Reuses this result's
+         * normalised time and exposure: a score is linear in {@code w}, so the
+         * winner only changes where two score lines cross and no weight has
+         * to be re-evaluated.
+         */
+        public List<Tradeoff> tradeoffs() {
+            int n = minutes.length;
+            double[] from = new double[n];
+            double[] to = new double[n];
+            Arrays.fill(from, Double.NaN);
+            Arrays.fill(to, Double.NaN);
+            winnersByWeight(from, to);
+
+            List<Integer> frontier = new ArrayList<>();
+            for (int r = 0; r < n; r++) {
+                if (!dominated(r)) frontier.add(r);
+            }
+            frontier.sort((a, b) -> a.equals(b) ? 0
+                    : minutes[a] != minutes[b] ? Double.compare(minutes[a], minutes[b])
+                    : Double.compare(exposure[a], exposure[b]));
+
+            List<Tradeoff> tradeoffs = new ArrayList<>(frontier.size());
+            for (int r : frontier) {
+                tradeoffs.add(new Tradeoff(routes.routeId(r), minutes[r], exposure[r], from[r], to[r]));
+            }
+            return tradeoffs;
+        }
+
+        private boolean dominated(int route) {
+            for (int other = 0; other < minutes.length; other++) {
+                if (other == route) continue;
+                boolean noWorse = minutes[other] <= minutes[route] && exposure[other] <= exposure[route];
+                boolean better = minutes[other] < minutes[route] || exposure[other] < exposure[route];
+                if (noWorse && better) return true;
+            }
+            return false;
+        }
+
+        /**
+         * Walks the lower envelope of J_r(w) = t_r + w*(e_r - t_r) from w = 0
+         * to 1, filling the winning interval of each route on it. Ties go to
+         * the line that keeps winning longer (smaller slope), then input order.
+         */
+        private void winnersByWeight(double[] from, double[] to) {
+            int n = minutes.length;
+            if (n == 0) return;
+
+            int current = 0;
+            for (int r = 1; r < n; r++) {
+                if (normalizedTime[r] < normalizedTime[current]
+                        || normalizedTime[r] == normalizedTime[current] && slope(r) < slope(current)) {
+                    current = r;
+                }
+            }
+
+            double w = 0.0;
+            while (true) {
+                int next = -1;
+                double crossing = 1.0;
+                for (int r = 0; r < n; r++) {
+                    if (slope(r) >= slope(current)) continue;
+                    // Lines meet at a_r + w*s_r = a_c + w*s_c
+                    double x = (normalizedTime[r] - normalizedTime[current]) / (slope(current) - slope(r));
+                    if (x < w || x >= 1.0) continue;
+                    if (x < crossing || x == crossing && next >= 0 && slope(r) < slope(next)) {
+                        crossing = x;
+                        next = r;
+                    }
+                }
+                from[current] = w;
+                to[current] = crossing;
+                if (next < 0) return;
+                if (crossing > w) {
+                    w = crossing;
+                } else {
+                    // Crossing at the start of the interval: the current line never actually led
+                    from[current] = Double.NaN;
+                    to[current] = Double.NaN;
+                }
+                current = next;
+            }
+        }
+
+        private double slope(int route) {
+            return normalizedExposure[route] - normalizedTime[route];
+        }
+    }
+
+    /**
+     * @param routes the alternatives to compare
+     * @param w      weight between time and exposure (0 <= w <= 1)
+     */
+    public static Result evaluate(RouteSet routes, double w) {
+        int n = routes.size();
+        double[] minutes = new double[n];
+        double[] exposure = new double[n];
+        double[] meanAqi = new double[n];
+        double[] meanPm25 = new double[n];
+
+        double totalTime = 0.0;
+        double totalExposure = 0.0;
+
+        // Per-route reductions over the point columns
+        for (int r = 0; r < n; r++) {
+            double t = routes.durationSeconds(r) / 60.0;
+            minutes[r] = t;
+            totalTime += t;
+
+            double[] aqi = routes.aqi(r);
+            exposure[r] = KERNEL.exposure(aqi, t);
+            totalExposure += exposure[r];
+
+            double precomputedAqi = routes.avgAqi(r);
+            meanAqi[r] = !Double.isNaN(precomputedAqi) ? precomputedAqi : KERNEL.mean(aqi);
+
+            double precomputedPm25 = routes.avgPm25(r);
+            meanPm25[r] = !Double.isNaN(precomputedPm25) ? precomputedPm25 : KERNEL.mean(routes.pm25(r));
+        }
+
+        // Scores over per-route totals
+        double meanTime = n == 0 ? 0.0 : totalTime / n;
+        double meanExposure = n == 0 ? 0.0 : totalExposure / n;
+        double[] normalizedTime = new double[n];
+        double[] normalizedExposure = new double[n];
+        double[] scores = new double[n];
+        for (int r = 0; r < n; r++) {
+            normalizedTime[r] = (meanTime == 0.0) ? 0.0 : minutes[r] / meanTime;
+            normalizedExposure[r] = (meanExposure == 0.0) ? 0.0 : exposure[r] / meanExposure;
+            scores[r] = (1.0 - w) * normalizedTime[r] + w * normalizedExposure[r];
+        }
+
+        int[] ranking = rank(scores);
+        return new Result(routes, minutes, exposure, normalizedTime, normalizedExposure,
+                scores, ranking, health(ranking, minutes, meanAqi, meanPm25));
+    }
+
+    /** Indices sorted by score ascending; insertion sort, n is a handful of alternatives. */
+    private static int[] rank(double[] scores) {
+        int[] order = new int[scores.length];
+        for (int i = 0; i < order.length; i++) {
+            int route = i;
+            int j = i - 1;
+            while (j >= 0 && scores[order[j]] > scores[route]) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = route;
+        }
+        return order;
+    }
+
+    private static RouteHealthMetricsService.HealthMetrics health(int[] ranking, double[] minutes,
+                                                                  double[] meanAqi, double[] meanPm25) {
+        if (ranking.length < 2) {
+            return new RouteHealthMetricsService.HealthMetrics(0, 0, 0);
+        }
+
+        int eco = ranking[0];
+        double eEco = meanAqi[eco] * minutes[eco];
+        double dEco = meanPm25[eco] * VENTILATION_RATE * minutes[eco];
+
+        // Worst alternative by exposure, first one wins a tie
+        double worstExposure = Double.MIN_VALUE;
+        double worstDose = Double.MIN_VALUE;
+        double worstDuration = 0.0;
+        for (int r = 0; r < minutes.length; r++) {
+            if (r == eco) continue;
+            double altExposure = meanAqi[r] * minutes[r];
+            if (altExposure > worstExposure) {
+                worstExposure = altExposure;
+                worstDose = meanPm25[r] * VENTILATION_RATE * minutes[r];
+                worstDuration = minutes[r];
+            }
+        }
+
+        double exposureReductionPct = worstExposure == 0.0
+                ? 0.0
+                : ((worstExposure - eEco) / worstExposure) * 100.0;
+        double pm25Avoided = worstDose - dEco;
+        double equivalentMinutes = worstDose == 0.0
+                ? 0.0
+                : (pm25Avoided * worstDuration) / worstDose;
+
+        return new RouteHealthMetricsService.HealthMetrics(
+                Math.max(0.0, exposureReductionPct),
+                Math.max(0.0, pm25Avoided),
+                Math.max(0.0, equivalentMinutes));
+    }
+}
@@ -10,6 +10,8 @@ import ai.theaware.stealth.config.CastUtils;
 public final class RouteHealthMetricsService {
 
     private static final double VENTILATION_RATE = 0.012; // m³/min
+    private static final Pattern HOURS = Pattern.compile("(\\d+)\\s*hour");
+    private static final Pattern MINUTES = Pattern.compile("(\\d+)\\s*min");
 
     private RouteHealthMetricsService() {}
 
@@ -43,6 +45,10 @@ public final class RouteHealthMetricsService {
     // -------------------------------------------------------------------------
 
     /**
+     * Map-based reference implementation. The request path uses
+     * {@link RouteEvaluationEngine}; this is kept only as the baseline the JMH
+     * benchmarks compare against.
+     *
      * @param routeAnalysis  parsed "route_analysis" block from AI service response
      * @param ecoRouteId     the recommended route id e.g. "Route_1"
      * @return               all three health metrics
@@ -171,12 +177,10 @@ public final class RouteHealthMetricsService {
         String duration = ((String) raw).trim().toLowerCase();
         double total    = 0.0;
 
-        Matcher h = Pattern
-                .compile("(\\d+)\\s*hour").matcher(duration);
+        Matcher h = HOURS.matcher(duration);
         if (h.find()) total += Integer.parseInt(h.group(1)) * 60.0;
 
-        Matcher m = Pattern
-                .compile("(\\d+)\\s*min").matcher(duration);
+        Matcher m = MINUTES.matcher(duration);
         if (m.find()) total += Integer.parseInt(m.group(1));
 
         return total;
@@ -0,0 +1,127 @@
+package ai.theaware.stealth.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+import ai.theaware.stealth.dto.HealthMetricsResponseDTO;
+import ai.theaware.stealth.dto.RouteAnalysis;
+import ai.theaware.stealth.dto.RouteAnalysisResponseDTO;
+import ai.theaware.stealth.dto.RouteCacheKey;
+import ai.theaware.stealth.dto.RouteDirections;
+import ai.theaware.stealth.dto.RouteSet;
+import ai.theaware.stealth.dto.RouteTradeoffDTO;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Stage 3 of the route pipeline: scoring, rank labels and health metrics on
+ * top of the AI analysis, computed together by {@link RouteEvaluationEngine}
+ * and cached per snapped cell pair in {@code route_recommendations}.
+ */
+@Service
+@Slf4j
+public class RouteRecommendationService {
+
+    private static final double SCORING_WEIGHT = 0.5;
+
+    private final StageMetrics stageMetrics;
+
+    public RouteRecommendationService(StageMetrics stageMetrics) {
+        this.stageMetrics = stageMetrics;
+    }
+
+    /**
+     * Returns the enriched response. The instance is shared by every cache hit
+     * and must not be mutated by callers.
+     */
+    @Cacheable(value = "route_recommendations", key = "#key", sync = true)
+    public RouteAnalysisResponseDTO recommend(RouteCacheKey key, RouteAnalysis analysis,
+                                              RouteDirections directions) {
+        log.info("[CACHE MISS] Recommendation for {}", key);
+        RouteStageEvent.markCache("miss");
+        return appendRecommendation(analysis, directions);
+    }
+
+    // -------------------------------------------------------------------------
+    // Scoring integration
+    // -------------------------------------------------------------------------
+
+    private RouteAnalysisResponseDTO appendRecommendation(RouteAnalysis analysis, RouteDirections directions) {
+        RouteAnalysisResponseDTO response = new RouteAnalysisResponseDTO();
+        analysis.getFields().forEach(response::setAiField);
+
+        try {
+            if (analysis.getRoutes() == null || analysis.getRoutes().isEmpty()) {
+                log.warn("[SCORE] 'route_analysis' missing from AI response – using empty forecasts");
+            }
+            RouteSet routes = RouteSet.of(analysis, directions);
+            RouteEvaluationEngine.Result result = stageMetrics.record("evaluation",
+                    () -> RouteEvaluationEngine.evaluate(routes, SCORING_WEIGHT));
+
+            List<String> ranked = result.ranked();
+            log.info("[SCORE] Route scores: {} | Ranked (best→poor): {}", result.scoresById(), ranked);
+            applyRankLabels(response, ranked);
+            response.setTradeoffs(toTradeoffs(result.tradeoffs()));
+
+            if (analysis.getRoutes() == null) {
+                // Without per-route data the metrics would only be zeros
+                log.warn("[HEALTH] 'route_analysis' block is missing or invalid, health metrics omitted");
+            } else {
+                RouteHealthMetricsService.HealthMetrics health = result.health();
+                log.info("[HEALTH] recommended={} | {}", ranked.isEmpty() ? null : ranked.get(0), health);
+                response.setHealthMetrics(new HealthMetricsResponseDTO(
+                        health.exposureReductionPct,
+                        health.pm25AvoidedUg,
+                        health.equivalentMinutes
+                ));
+            }
+            return response;
+
+        } catch (IllegalArgumentException e) {
+            log.error("[SCORE] Scoring failed, applying default rank labels: {}", e.getMessage(), e);
+            // Fallback: rank by natural order Route_1, Route_2, Route_3
+            List<String> fallback = new ArrayList<>();
+            for (int i = 1; i <= directions.getRouteCount(); i++) fallback.add("Route_" + i);
+            applyRankLabels(response, fallback);
+            return response;
+        }
+    }
+
+    /** Lets the client move the time/exposure weight without another request. */
+    private List<RouteTradeoffDTO> toTradeoffs(List<RouteEvaluationEngine.Tradeoff> tradeoffs) {
+        List<RouteTradeoffDTO> dtos = new ArrayList<>(tradeoffs.size());
+        for (RouteEvaluationEngine.Tradeoff tradeoff : tradeoffs) {
+            dtos.add(new RouteTradeoffDTO(
+                    tradeoff.routeId(),
+                    tradeoff.minutes(),
+                    tradeoff.exposure(),
+                    tradeoff.wins() ? tradeoff.weightFrom() : null,
+                    tradeoff.wins() ? tradeoff.weightTo() : null));
+        }
+        log.info("[SCORE] Pareto frontier: {}", tradeoffs);
+        return dtos;
+    }
+
+    private void applyRankLabels(RouteAnalysisResponseDTO response, List<String> ranked) {
+        if (ranked.isEmpty()) return;
+
+        // Build label lookup: routeId -> label, keyed by score-sorted position
+        Map<String, String> labelMap = new HashMap<>();
+        labelMap.put(ranked.get(0), "best");
+        if (ranked.size() == 2) {
+            labelMap.put(ranked.get(1), "poor");
+        } else if (ranked.size() >= 3) {
+            labelMap.put(ranked.get(1), "moderate");
+            labelMap.put(ranked.get(ranked.size() - 1), "poor");
+        }
+        ranked.stream()
+              .sorted()
+              .forEach(routeId -> response.setAiField(routeId, labelMap.get(routeId)));
+
+        response.setRecommended(ranked.get(0));
+    }
+}
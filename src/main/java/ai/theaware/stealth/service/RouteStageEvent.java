@@ -0,0 +1,111 @@
+package ai.theaware.stealth.service;
+
+import java.util.List;
+
+import ai.theaware.stealth.dto.RouteResponseDTO;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for one route pipeline stage, viewable in JMC under
+ * Stealth / Route Pipeline.
+ *
+ * The event in progress on the current thread is reachable through the
+ * static helpers, so the stage bodies behind {@code @Cacheable} can flag a
+ * miss and the HTTP interceptor can add the bytes it sent without threading
+ * the event through every signature. When JFR is not recording the event is
+ * never registered and the helpers are no-ops.
+ */
+@Name("ai.theaware.stealth.RouteStage")
+@Label("Route Stage")
+@Category({"Stealth", "Route Pipeline"})
+@Description("One stage of a route request: Directions, AI analysis, forecast, recommendation or history")
+@StackTrace(false)
+public final class RouteStageEvent extends Event {
+
+    private static final ThreadLocal<RouteStageEvent> CURRENT = new ThreadLocal<>();
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Route Count")
+    int routeCount;
+
+    @Label("Point Count")
+    @Description("Resampled points across all routes")
+    int pointCount;
+
+    @Label("Payload")
+    @Description("Request bytes sent to the AI service, before compression")
+    @DataAmount
+    long payloadBytes;
+
+    @Label("Cache")
+    @Description("hit, miss, l2_hit, coalesced, or none for uncached stages")
+    String cache;
+
+    @Label("Outcome")
+    String outcome;
+
+    private transient RouteStageEvent previous;
+
+    private RouteStageEvent() {
+    }
+
+    /**
+     * Starts an event and makes it current on this thread. Cached stages
+     * start as a hit; the stage body calls {@link #markCache} on a miss.
+     */
+    public static RouteStageEvent start(String stage, boolean cached) {
+        RouteStageEvent event = new RouteStageEvent();
+        if (!event.isEnabled()) return event;
+
+        event.stage = stage;
+        event.cache = cached ? "hit" : "none";
+        event.outcome = "error";
+        event.previous = CURRENT.get();
+        CURRENT.set(event);
+        event.begin();
+        return event;
+    }
+
+    /** Adds the routes this stage works on; called once per request in a batch. */
+    public RouteStageEvent routes(List<RouteResponseDTO.RouteDetail> routes) {
+        if (stage == null || routes == null) return this;
+        routeCount += routes.size();
+        for (RouteResponseDTO.RouteDetail route : routes) {
+            pointCount += route.getCoordinates().size();
+        }
+        return this;
+    }
+
+    public void succeeded() {
+        outcome = "success";
+    }
+
+    /** Ends the event and restores the one that was current before it. */
+    public void finish() {
+        if (stage == null) return;
+        if (CURRENT.get() == this) {
+            if (previous == null) CURRENT.remove(); else CURRENT.set(previous);
+        }
+        commit();
+    }
+
+    /** Records how the cache answered for the stage running on this thread. */
+    public static void markCache(String result) {
+        RouteStageEvent event = CURRENT.get();
+        if (event != null) event.cache = result;
+    }
+
+    /** Adds request bytes for the stage running on this thread. */
+    public static void addPayloadBytes(long bytes) {
+        RouteStageEvent event = CURRENT.get();
+        if (event != null) event.payloadBytes += bytes;
+    }
+}
@@ -0,0 +1,55 @@
+package ai.theaware.stealth.service;
+
+import java.util.concurrent.Future;
+
+/**
+ * A running {@link GoogleRoutingService#streamRoute}. Cancelling it, e.g.
+ * when the client disconnects, interrupts the pipeline and cancels the
+ * prediction job it started; both are no-ops once they have finished.
+ */
+public final class RouteStream {
+
+    private Future<?> pipeline;
+    private PredictionJob predictionJob;
+    private boolean cancelled;
+
+    RouteStream() {
+    }
+
+    public void cancel() {
+        Future<?> runningPipeline;
+        PredictionJob job;
+        synchronized (this) {
+            if (cancelled) return;
+            cancelled = true;
+            runningPipeline = pipeline;
+            job = predictionJob;
+        }
+        if (runningPipeline != null) runningPipeline.cancel(true);
+        if (job != null) job.cancel();
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    void attach(Future<?> pipeline) {
+        synchronized (this) {
+            if (!cancelled) {
+                this.pipeline = pipeline;
+                return;
+            }
+        }
+        pipeline.cancel(true);
+    }
+
+    void attach(PredictionJob job) {
+        synchronized (this) {
+            if (!cancelled) {
+                this.predictionJob = job;
+                return;
+            }
+        }
+        job.cancel();
+    }
+}
@@ -0,0 +1,30 @@
+package ai.theaware.stealth.service;
+
+import ai.theaware.stealth.dto.PredictionResponseDTO;
+import ai.theaware.stealth.dto.RouteAnalysisResponseDTO;
+import ai.theaware.stealth.dto.RouteResponseDTO;
+
+/**
+ * Receives the staged results of {@link GoogleRoutingService#streamRoute} in
+ * order: geometry (skipped if Directions fails), analysis, forecast (skipped
+ * if no forecast was started), then {@link #onComplete()}. If the pipeline
+ * itself fails, {@link #onError} replaces whatever had not been sent yet.
+ *
+ * Callbacks run on route pipeline threads, never on a servlet thread.
+ */
+public interface RouteStreamListener {
+
+    /** Resampled alternatives, as soon as Directions returns. */
+    void onGeometry(RouteResponseDTO geometry);
+
+    /** AI analysis with rank labels and health metrics, or an error response. */
+    void onAnalysis(RouteAnalysisResponseDTO analysis);
+
+    /** Forecast once the prediction call finishes; status "error" or "cancelled" otherwise. */
+    void onForecast(PredictionResponseDTO forecast);
+
+    /** The pipeline failed; {@link #onComplete()} follows. */
+    void onError(String message);
+
+    void onComplete();
+}
@@ -0,0 +1,33 @@
+package ai.theaware.stealth.service;
+
+/** Plain loops; the fallback when the Vector API is not available. */
+final class ScalarExposureKernel implements ExposureKernel {
+
+    static final ScalarExposureKernel INSTANCE = new ScalarExposureKernel();
+
+    private ScalarExposureKernel() {
+    }
+
+    @Override
+    public double risk(double[] aqi) {
+        double squares = 0.0;
+        for (double value : aqi) {
+            squares += value * value;
+        }
+        return squares / (AQI_MAX * AQI_MAX);
+    }
+
+    @Override
+    public double sum(double[] values) {
+        double sum = 0.0;
+        for (double value : values) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
@@ -0,0 +1,168 @@
+package ai.theaware.stealth.service;
+
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-flight deduplication for the route pipeline stages.
+ *
+ * The first caller for a (stage, key) pair runs the call; callers arriving
+ * while it is still running wait for the same result instead of starting
+ * their own, and see the same exception if it fails. Nothing is kept once
+ * the call finishes — the stage caches take over from there.
+ *
+ * A waiter belongs to a different request than the leader, so it waits only
+ * until its own {@link Deadline}, and does not inherit failures that belong
+ * to the leader's request alone: if the leader was interrupted, cancelled,
+ * ran out of its own deadline or was refused for its user's Google quota,
+ * waiters start over and one of them leads.
+ *
+ * The stage caches are {@code @Cacheable(sync = true)}, and Caffeine already
+ * runs one loader per key, so a plain miss is coalesced twice. This layer is
+ * kept in front of the caches for what Caffeine's per-key compute does not
+ * do: its waiters block on the entry lock with no timeout and cannot be
+ * interrupted, and reloads of entries past their stale window run in every
+ * reader's thread ({@code RefreshingCacheManager}). With this layer in front,
+ * a single thread per key reaches the cache loader.
+ *
+ *   route.singleflight.calls{stage="directions", result="leader|coalesced"}
+ *   route.singleflight.inflight
+ */
+@Component
+@Slf4j
+public class SingleFlight {
+
+    /** A call that may throw one checked exception type. */
+    @FunctionalInterface
+    public interface Call<V, E extends Exception> {
+        V call() throws E;
+    }
+
+    private record FlightKey(String stage, Object key) {}
+
+    /** The leader's failure came from its own request; waiters retry instead of rethrowing it. */
+    private static final class LeaderAbandoned extends RuntimeException {
+        LeaderAbandoned(Throwable cause) {
+            super(cause.toString(), cause, false, false);
+        }
+    }
+
+    private final ConcurrentMap<FlightKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Counter[]> counters = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public SingleFlight(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("route.singleflight.inflight", inFlight, ConcurrentMap::size)
+                .description("Route pipeline calls currently running with possible waiters")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the call, or waits for an identical one in flight. A waiter whose
+     * {@link Deadline} passes first gets {@link DependencyUnavailableException}.
+     */
+    @SuppressWarnings("unchecked")
+    public <V, E extends Exception> V execute(String stage, Object key, Call<V, E> call)
+            throws E, InterruptedException {
+        FlightKey flightKey = new FlightKey(stage, key);
+        while (true) {
+            CompletableFuture<Object> mine = new CompletableFuture<>();
+            CompletableFuture<Object> leader = inFlight.putIfAbsent(flightKey, mine);
+            if (leader == null) {
+                return lead(stage, flightKey, mine, call);
+            }
+
+            countersFor(stage)[1].increment();
+            RouteStageEvent.markCache("coalesced");
+            log.debug("[SINGLE FLIGHT] Joined in-flight {} call for {}", stage, key);
+            try {
+                return (V) await(stage, leader);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof LeaderAbandoned abandoned) {
+                    log.debug("[SINGLE FLIGHT] {} call for {} abandoned by its leader ({}), retrying",
+                            stage, key, abandoned.getMessage());
+                    continue;
+                }
+                if (cause instanceof RuntimeException runtime) throw runtime;
+                if (cause instanceof Error error) throw error;
+                throw (E) cause;
+            }
+        }
+    }
+
+    private <V, E extends Exception> V lead(String stage, FlightKey flightKey, CompletableFuture<Object> mine,
+                                            Call<V, E> call) throws E {
+        countersFor(stage)[0].increment();
+        try {
+            V value = call.call();
+            mine.complete(value);
+            return value;
+        } catch (Throwable t) {
+            mine.completeExceptionally(abandonedByLeader(t) ? new LeaderAbandoned(t) : t);
+            throw t;
+        } finally {
+            inFlight.remove(flightKey, mine);
+        }
+    }
+
+    /** Waits for the leader, at most until the caller's own deadline. */
+    private static Object await(String stage, CompletableFuture<Object> leader)
+            throws ExecutionException, InterruptedException {
+        Instant deadline = Deadline.current();
+        if (deadline == null) return leader.get();
+        long leftNanos = Duration.between(Instant.now(), deadline).toNanos();
+        try {
+            return leader.get(Math.max(0, leftNanos), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new DependencyUnavailableException(stage, "deadline passed waiting for the in-flight call");
+        }
+    }
+
+    /**
+     * Whether a failure says more about the leader's request than about the
+     * call: the leader was interrupted or cancelled, its user is out of
+     * Google quota, or its deadline is over (a timeout it cut short, or a
+     * call the guard refused for lack of time).
+     */
+    private static boolean abandonedByLeader(Throwable t) {
+        if (t instanceof InterruptedException || t instanceof CancellationException
+                || t instanceof InterruptedIOException) {
+            return true;
+        }
+        if (t instanceof QuotaExceededException quota && quota.isUserScope()) return true;
+        if (Thread.currentThread().isInterrupted()) return true;
+        Instant deadline = Deadline.current();
+        return deadline != null && !Instant.now().isBefore(deadline);
+    }
+
+    /** [leader, coalesced] counters for a stage. */
+    private Counter[] countersFor(String stage) {
+        return counters.computeIfAbsent(stage, s -> new Counter[] {
+                Counter.builder("route.singleflight.calls")
+                        .description("Route pipeline calls by whether they ran or joined an identical in-flight call")
+                        .tags("stage", s, "result", "leader")
+                        .register(meterRegistry),
+                Counter.builder("route.singleflight.calls")
+                        .description("Route pipeline calls by whether they ran or joined an identical in-flight call")
+                        .tags("stage", s, "result", "coalesced")
+                        .register(meterRegistry)
+        });
+    }
+}
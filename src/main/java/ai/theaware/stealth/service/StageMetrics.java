@@ -0,0 +1,55 @@
+package ai.theaware.stealth.service;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Latency per route pipeline stage, tagged by how the stage ended:
+ *
+ *   route.stage.duration{stage="directions", outcome="success|error|cancelled"}
+ *
+ * Timers publish percentile histograms, so p50/p99 come from
+ * {@code histogram_quantile} on the Prometheus side, and the {@code _count}
+ * series doubles as the call counter.
+ */
+@Component
+public class StageMetrics {
+
+    private final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public StageMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /** Runs the call and records its duration under the given stage. */
+    public <V, E extends Exception> V record(String stage, SingleFlight.Call<V, E> call) throws E {
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            V value = call.call();
+            outcome = "success";
+            return value;
+        } catch (Exception e) {
+            if (e instanceof InterruptedException || e instanceof CancellationException) outcome = "cancelled";
+            throw e;
+        } finally {
+            timer(stage, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer timer(String stage, String outcome) {
+        return timers.computeIfAbsent(stage + '|' + outcome, k -> Timer.builder("route.stage.duration")
+                .description("Route pipeline stage latency")
+                .tags("stage", stage, "outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+}
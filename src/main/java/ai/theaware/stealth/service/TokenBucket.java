@@ -0,0 +1,66 @@
+package ai.theaware.stealth.service;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket, kept as a single word in the form of the generic
+ * cell rate algorithm: instead of a token count and a refill time it stores
+ * the theoretical arrival time (TAT), the instant by which the bucket would
+ * be full again. Taking a token moves the TAT one interval later; a take is
+ * refused when that would put it more than {@code capacity} intervals ahead
+ * of now. One CAS per take, no refill thread.
+ */
+public final class TokenBucket {
+
+    private final long capacity;
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final AtomicLong theoreticalArrival;
+
+    /**
+     * @param capacity tokens available at once (the burst)
+     * @param interval time to earn back one token
+     */
+    public TokenBucket(long capacity, Duration interval) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Bucket capacity must be at least 1: " + capacity);
+        }
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("Refill interval must be positive: " + interval);
+        }
+        this.capacity = capacity;
+        this.intervalNanos = interval.toNanos();
+        this.burstNanos = Math.multiplyExact(capacity, intervalNanos);
+        // Starts full
+        this.theoreticalArrival = new AtomicLong(System.nanoTime());
+    }
+
+    /** Takes one token if there is one. */
+    public boolean tryAcquire() {
+        long now = System.nanoTime();
+        while (true) {
+            long tat = theoreticalArrival.get();
+            long next = Math.max(tat, now) + intervalNanos;
+            if (next - now > burstNanos) return false;
+            if (theoreticalArrival.compareAndSet(tat, next)) return true;
+        }
+    }
+
+    /** Gives back a token taken by {@link #tryAcquire} that ended up unused. */
+    public void refund() {
+        theoreticalArrival.addAndGet(-intervalNanos);
+    }
+
+    /** Whole tokens available now. */
+    public long available() {
+        long ahead = Math.max(0, theoreticalArrival.get() - System.nanoTime());
+        return Math.min(capacity, (burstNanos - ahead) / intervalNanos);
+    }
+
+    /** Time until a token is available; zero if one is now. */
+    public Duration timeToNextToken() {
+        long ahead = theoreticalArrival.get() - System.nanoTime();
+        return Duration.ofNanos(Math.max(0, ahead + intervalNanos - burstNanos));
+    }
+}
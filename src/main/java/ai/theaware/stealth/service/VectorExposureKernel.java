@@ -0,0 +1,91 @@
+package ai.theaware.stealth.service;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link ExposureKernel} on the JDK Vector API, using the widest species the
+ * CPU supports. The main loop keeps four independent accumulators so
+ * consecutive adds do not wait on each other; leftovers go through one
+ * vector at a time and then a scalar tail.
+ *
+ * Only loaded through {@link ExposureKernel#INSTANCE}, and only when
+ * {@code jdk.incubator.vector} is in the boot layer. Sums are reassociated,
+ * so results can differ from {@link ScalarExposureKernel} in the last bits.
+ */
+final class VectorExposureKernel implements ExposureKernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+    private static final int UNROLL = 4 * LANES;
+
+    /** False without SIMD registers to speak of: the scalar loop is as fast then. */
+    static boolean isWorthwhile() {
+        return LANES > 1;
+    }
+
+    @Override
+    public double risk(double[] aqi) {
+        DoubleVector acc0 = DoubleVector.zero(SPECIES);
+        DoubleVector acc1 = acc0;
+        DoubleVector acc2 = acc0;
+        DoubleVector acc3 = acc0;
+
+        int i = 0;
+        int unrolledBound = aqi.length - aqi.length % UNROLL;
+        for (; i < unrolledBound; i += UNROLL) {
+            DoubleVector v0 = DoubleVector.fromArray(SPECIES, aqi, i);
+            DoubleVector v1 = DoubleVector.fromArray(SPECIES, aqi, i + LANES);
+            DoubleVector v2 = DoubleVector.fromArray(SPECIES, aqi, i + 2 * LANES);
+            DoubleVector v3 = DoubleVector.fromArray(SPECIES, aqi, i + 3 * LANES);
+            acc0 = acc0.add(v0.mul(v0));
+            acc1 = acc1.add(v1.mul(v1));
+            acc2 = acc2.add(v2.mul(v2));
+            acc3 = acc3.add(v3.mul(v3));
+        }
+        int bound = SPECIES.loopBound(aqi.length);
+        for (; i < bound; i += LANES) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, aqi, i);
+            acc0 = acc0.add(v.mul(v));
+        }
+
+        double squares = acc0.add(acc1).add(acc2.add(acc3)).reduceLanes(VectorOperators.ADD);
+        for (; i < aqi.length; i++) {
+            squares += aqi[i] * aqi[i];
+        }
+        return squares / (AQI_MAX * AQI_MAX);
+    }
+
+    @Override
+    public double sum(double[] values) {
+        DoubleVector acc0 = DoubleVector.zero(SPECIES);
+        DoubleVector acc1 = acc0;
+        DoubleVector acc2 = acc0;
+        DoubleVector acc3 = acc0;
+
+        int i = 0;
+        int unrolledBound = values.length - values.length % UNROLL;
+        for (; i < unrolledBound; i += UNROLL) {
+            acc0 = acc0.add(DoubleVector.fromArray(SPECIES, values, i));
+            acc1 = acc1.add(DoubleVector.fromArray(SPECIES, values, i + LANES));
+            acc2 = acc2.add(DoubleVector.fromArray(SPECIES, values, i + 2 * LANES));
+            acc3 = acc3.add(DoubleVector.fromArray(SPECIES, values, i + 3 * LANES));
+        }
+        int bound = SPECIES.loopBound(values.length);
+        for (; i < bound; i += LANES) {
+            acc0 = acc0.add(DoubleVector.fromArray(SPECIES, values, i));
+        }
+
+        double sum = acc0.add(acc1).add(acc2.add(acc3)).reduceLanes(VectorOperators.ADD);
+        for (; i < values.length; i++) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public String name() {
+        return "vector (" + LANES + " lanes)";
+    }
+}
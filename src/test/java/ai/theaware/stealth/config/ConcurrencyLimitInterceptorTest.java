@@ -0,0 +1,63 @@
+package ai.theaware.stealth.config;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Async requests: released at the handoff unless the handler holds the
+ * permit, in which case the slot stays taken until the handler ends it.
+ */
+class ConcurrencyLimitInterceptorTest {
+
+    private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+            new AdaptiveConcurrencyLimiter.Settings(1, 1, 1, 1.5, 0.2, Duration.ofSeconds(1), 600),
+            new SimpleMeterRegistry());
+    private final ConcurrencyLimitInterceptor interceptor = new ConcurrencyLimitInterceptor(limiter);
+
+    @Test
+    void asyncRequestIsReleasedAtTheHandoff() throws Exception {
+        MockHttpServletRequest request = admit();
+
+        interceptor.afterConcurrentHandlingStarted(request, new MockHttpServletResponse(), null);
+
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void heldPermitOutlivesTheHandoffUntilEnded() throws Exception {
+        MockHttpServletRequest request = admit();
+
+        ConcurrencyLimitInterceptor.Permit permit = ConcurrencyLimitInterceptor.holdAcrossAsync(request);
+        interceptor.afterConcurrentHandlingStarted(request, new MockHttpServletResponse(), null);
+        assertFalse(limiter.tryAcquire());
+
+        permit.succeeded();
+        permit.release();
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+    }
+
+    @Test
+    void unlimitedRequestGetsAPermitThatDoesNothing() {
+        ConcurrencyLimitInterceptor.Permit permit =
+                ConcurrencyLimitInterceptor.holdAcrossAsync(new MockHttpServletRequest());
+
+        permit.dropped();
+
+        assertTrue(limiter.tryAcquire());
+    }
+
+    private MockHttpServletRequest admit() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/routes/stream");
+        assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(), null));
+        return request;
+    }
+}
@@ -0,0 +1,144 @@
+package ai.theaware.stealth.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import ai.theaware.stealth.config.SnappedRouteKeyGenerator;
+import ai.theaware.stealth.dto.PredictionResponseDTO;
+import ai.theaware.stealth.dto.RouteAnalysisResponseDTO;
+import ai.theaware.stealth.dto.RouteCacheKey;
+import ai.theaware.stealth.dto.RouteResponseDTO;
+import ai.theaware.stealth.entity.Users;
+import ai.theaware.stealth.repository.RouteRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * {@link GoogleRoutingService#streamRoute}: a failing pipeline still ends
+ * the stream, and cancelling the stream stops the pipeline.
+ */
+@Timeout(10)
+class GoogleRoutingServiceStreamTest {
+
+    private final DirectionsService directions = mock(DirectionsService.class);
+    private final SnappedRouteKeyGenerator routeKeys = mock(SnappedRouteKeyGenerator.class);
+    private final ExecutorService pipelineExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final RecordingListener listener = new RecordingListener();
+    private final Users user = new Users();
+    private GoogleRoutingService service;
+
+    @BeforeEach
+    void setUp() {
+        user.setEmail("rider@example.com");
+        when(routeKeys.snap(anyDouble(), anyDouble(), anyDouble(), anyDouble()))
+                .thenReturn(RouteCacheKey.snap(23.52, 87.31, 23.55, 87.29, 75));
+        service = new GoogleRoutingService(
+                mock(RouteRepository.class),
+                mock(PredictionService.class),
+                directions,
+                mock(RouteAnalysisService.class),
+                mock(RouteRecommendationService.class),
+                routeKeys,
+                new SingleFlight(new SimpleMeterRegistry()),
+                pipelineExecutor,
+                mock(PriorityTaskExecutor.class),
+                new StageMetrics(new SimpleMeterRegistry()),
+                Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void shutDown() {
+        pipelineExecutor.shutdownNow();
+    }
+
+    @Test
+    void unexpectedFailureEndsTheStreamWithAnErrorEvent() throws Exception {
+        when(directions.fetch(any(), anyDouble(), anyDouble(), anyDouble(), anyDouble()))
+                .thenThrow(new IllegalStateException("boom"));
+
+        service.streamRoute(23.52, 87.31, 23.55, 87.29, user, listener);
+
+        assertTrue(listener.completed.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("error:Processing Error", "complete"), listener.events);
+    }
+
+    @Test
+    void rejectedPipelineEndsTheStreamWithAnErrorEvent() {
+        pipelineExecutor.shutdown();
+
+        service.streamRoute(23.52, 87.31, 23.55, 87.29, user, listener);
+
+        assertEquals(List.of("error:Server busy, please retry shortly", "complete"), listener.events);
+    }
+
+    @Test
+    void cancellingTheStreamInterruptsThePipeline() throws Exception {
+        CountDownLatch fetching = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        when(directions.fetch(any(), anyDouble(), anyDouble(), anyDouble(), anyDouble())).thenAnswer(invocation -> {
+            fetching.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+            return null;
+        });
+
+        RouteStream stream = service.streamRoute(23.52, 87.31, 23.55, 87.29, user, listener);
+        assertTrue(fetching.await(5, TimeUnit.SECONDS));
+        stream.cancel();
+
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        assertTrue(stream.isCancelled());
+    }
+
+    private static final class RecordingListener implements RouteStreamListener {
+
+        final List<String> events = new CopyOnWriteArrayList<>();
+        final CountDownLatch completed = new CountDownLatch(1);
+
+        @Override
+        public void onGeometry(RouteResponseDTO geometry) {
+            events.add("geometry");
+        }
+
+        @Override
+        public void onAnalysis(RouteAnalysisResponseDTO analysis) {
+            events.add("analysis");
+        }
+
+        @Override
+        public void onForecast(PredictionResponseDTO forecast) {
+            events.add("forecast");
+        }
+
+        @Override
+        public void onError(String message) {
+            events.add("error:" + message);
+        }
+
+        @Override
+        public void onComplete() {
+            events.add("complete");
+            completed.countDown();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package ai.theaware.stealth.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import ai.theaware.stealth.dto.PackedPolyline;
+
+/**
+ * Frozen copy of the resampler that {@link PolylineResampler} replaced:
+ * full haversine per segment and BigDecimal rounding per coordinate.
+ * Kept as the benchmark baseline and the reference for accuracy checks.
+ */
+final class LegacyResampler {
+
+    private LegacyResampler() {}
+
+    static PackedPolyline resamplePath(PackedPolyline path, double interval) {
+        if (path.isEmpty()) return PackedPolyline.EMPTY;
+        PackedPolyline.Builder resampled = new PackedPolyline.Builder(path.size());
+        resampled.add(round(path.lat(0)), round(path.lng(0)));
+        double accumulatedDist = 0.0;
+        for (int i = 0; i < path.size() - 1; i++) {
+            double startLat = path.lat(i);
+            double startLng = path.lng(i);
+            double endLat = path.lat(i + 1);
+            double endLng = path.lng(i + 1);
+            double segmentDist = haversine(startLat, startLng, endLat, endLng);
+            while (accumulatedDist + segmentDist >= interval) {
+                double remainingNeeded = interval - accumulatedDist;
+                double ratio = remainingNeeded / segmentDist;
+                double nextLat = startLat + (endLat - startLat) * ratio;
+                double nextLng = startLng + (endLng - startLng) * ratio;
+                resampled.add(round(nextLat), round(nextLng));
+                startLat = nextLat;
+                startLng = nextLng;
+                segmentDist -= remainingNeeded;
+                accumulatedDist = 0.0;
+            }
+            accumulatedDist += segmentDist;
+        }
+        return resampled.build();
+    }
+
+    private static double round(double value) {
+        return BigDecimal.valueOf(value).setScale(6, RoundingMode.HALF_UP).doubleValue();
+    }
+
+    private static double haversine(double lat1, double lon1, double lat2, double lon2) {
+        double R = 6371000;
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
+                Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) *
+                Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * R * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+}
@@ -0,0 +1,135 @@
+package ai.theaware.stealth.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import ai.theaware.stealth.dto.PackedPolyline;
+
+/**
+ * {@link PolylineResampler} against the haversine + BigDecimal implementation
+ * it replaced ({@link LegacyResampler}): same point count and every
+ * coordinate within one step of the 6-decimal output rounding.
+ *
+ * The random routes only exercise the planar projection; each haversine
+ * fallback gets its own input below. Across the antimeridian the legacy
+ * resampler interpolated the long way round, so there only the point count
+ * is compared with it.
+ */
+class PolylineResamplerTest {
+
+    private static final double INTERVAL_METERS = 1000.0;
+
+    /** One step of the 6-decimal output rounding, plus float noise. */
+    private static final double TOLERANCE_DEGREES = 1.5e-6;
+
+    private static final int SEEDS = 200;
+
+    @ParameterizedTest
+    @ValueSource(ints = {2, 10, 100, 1000, 5000})
+    void matchesLegacyOnCityRoutes(int points) {
+        for (long seed = 0; seed < SEEDS; seed++) {
+            assertEquivalent(SyntheticRoutes.polyline(points, seed), "seed " + seed);
+        }
+    }
+
+    @Test
+    void matchesLegacyOnSegmentsLongerThanPlanarLimit() {
+        // 100–300 km straight runs, as in a sparse long-distance overview polyline
+        PackedPolyline path = polyline(
+                23.52, 87.31,
+                24.50, 87.90,
+                25.10, 85.40,
+                27.60, 85.30,
+                27.61, 85.31);
+        assertEquivalent(path, "long segments");
+    }
+
+    @Test
+    void matchesLegacyNearTheNorthPole() {
+        assertEquivalent(meander(84.5, 20.0, 0.01, 0.3, 200), "north of 80 degrees");
+    }
+
+    @Test
+    void matchesLegacyNearTheSouthPole() {
+        assertEquivalent(meander(-84.5, -60.0, -0.01, 0.3, 200), "south of -80 degrees");
+    }
+
+    @Test
+    void interpolatesAcrossTheAntimeridianTheShortWay() {
+        PackedPolyline eastbound = polyline(
+                65.00, 179.95,
+                65.01, 179.99,
+                65.02, -179.98,
+                65.03, -179.94,
+                65.04, -179.90);
+        PackedPolyline westbound = polyline(
+                -16.80, -179.90,
+                -16.79, -179.97,
+                -16.78, 179.96,
+                -16.77, 179.90);
+        assertStaysNearAntimeridian(eastbound, "antimeridian eastbound");
+        assertStaysNearAntimeridian(westbound, "antimeridian westbound");
+    }
+
+    @Test
+    void emptyPathStaysEmpty() {
+        assertEquals(0, PolylineResampler.resample(PackedPolyline.EMPTY, INTERVAL_METERS).size());
+    }
+
+    // -------------------------------------------------------------------------
+    // Helpers
+    // -------------------------------------------------------------------------
+
+    private static void assertEquivalent(PackedPolyline input, String label) {
+        PackedPolyline expected = LegacyResampler.resamplePath(input, INTERVAL_METERS);
+        PackedPolyline actual = PolylineResampler.resample(input, INTERVAL_METERS);
+
+        assertEquals(expected.size(), actual.size(), label + ": point count");
+        for (int i = 0; i < expected.size(); i++) {
+            double dLat = Math.abs(expected.lat(i) - actual.lat(i));
+            double dLng = Math.abs(expected.lng(i) - actual.lng(i));
+            int point = i;
+            assertTrue(dLat <= TOLERANCE_DEGREES && dLng <= TOLERANCE_DEGREES, () -> String.format(
+                    "%s point %d: off by (%.3g, %.3g) degrees, tolerance %.3g",
+                    label, point, dLat, dLng, TOLERANCE_DEGREES));
+        }
+    }
+
+    /** Same spacing as the legacy resampler, and no point on the far side of the globe. */
+    private static void assertStaysNearAntimeridian(PackedPolyline input, String label) {
+        PackedPolyline expected = LegacyResampler.resamplePath(input, INTERVAL_METERS);
+        PackedPolyline actual = PolylineResampler.resample(input, INTERVAL_METERS);
+
+        assertEquals(expected.size(), actual.size(), label + ": point count");
+        assertTrue(actual.size() > input.size(), label + ": resampled");
+        for (int i = 0; i < actual.size(); i++) {
+            double lng = actual.lng(i);
+            int point = i;
+            assertTrue(Math.abs(lng) >= 179.85 && Math.abs(lng) <= 180.0,
+                    () -> String.format("%s point %d: longitude %.6f", label, point, lng));
+        }
+    }
+
+    private static PackedPolyline polyline(double... latLng) {
+        PackedPolyline.Builder path = new PackedPolyline.Builder(latLng.length / 2);
+        for (int i = 0; i < latLng.length; i += 2) {
+            path.add(latLng[i], latLng[i + 1]);
+        }
+        return path.build();
+    }
+
+    /** Steps of ({@code dLat}, ±{@code dLng}) degrees, zig-zagging in longitude. */
+    private static PackedPolyline meander(double lat, double lng, double dLat, double dLng, int points) {
+        PackedPolyline.Builder path = new PackedPolyline.Builder(points);
+        for (int i = 0; i < points; i++) {
+            path.add(lat, lng);
+            lat += dLat;
+            lng += (i / 25) % 2 == 0 ? dLng : -dLng * 0.5;
+        }
+        return path.build();
+    }
+}
@@ -0,0 +1,60 @@
+package ai.theaware.stealth.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import ai.theaware.stealth.dto.RouteAnalysis;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Per-point values that are not plain numbers: the parser keeps its place in
+ * the stream and hands {@code details} back to the client unchanged.
+ */
+class RouteAnalysisParserTest {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+    private final RouteAnalysisParser parser = new RouteAnalysisParser(objectMapper);
+
+    @Test
+    void nestedAqiIsSkippedWithoutLeavingDetails() {
+        String details = "[{\"aqi\":[1,2],\"pm25\":{\"v\":3},\"lat\":1.5},{\"aqi\":40,\"pm25\":12.5}]";
+        RouteAnalysis analysis = parse("{\"route_analysis\":{\"route_0\":{\"details\":" + details
+                + ",\"duration\":\"5 mins\"}},\"status\":\"ok\"}");
+
+        RouteAnalysis.Route route = analysis.getRoutes().get("route_0");
+        assertArrayEquals(new double[] {40}, route.aqi());
+        assertArrayEquals(new double[] {12.5}, route.pm25());
+        assertEquals(details, route.getRawDetails());
+        assertEquals(Map.of("duration", "5 mins"), route.getFields());
+        assertEquals(List.of("route_analysis", "status"), List.copyOf(analysis.getFields().keySet()));
+    }
+
+    @Test
+    void numericStringAqiIsRead() {
+        RouteAnalysis analysis = parse(
+                "{\"route_analysis\":{\"route_0\":{\"details\":[{\"aqi\":\"55\"},{\"aqi\":\"n/a\"}]}}}");
+
+        assertArrayEquals(new double[] {55}, analysis.getRoutes().get("route_0").aqi());
+    }
+
+    @Test
+    void detailsRoundTripUnchanged() {
+        String json = "{\"route_analysis\":{\"route_0\":{\"avg_aqi\":42.0,"
+                + "\"details\":[{\"aqi\":[1,{\"x\":2}],\"pm25\":7.0,\"meta\":{\"a\":[]}},{\"aqi\":3}]}}}";
+
+        String written = objectMapper.writeValueAsString(parse(json).getFields());
+
+        assertEquals(objectMapper.readTree(json), objectMapper.readTree(written));
+    }
+
+    private RouteAnalysis parse(String json) {
+        return parser.parse(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,126 @@
+package ai.theaware.stealth.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import ai.theaware.stealth.dto.RouteSet;
+
+/**
+ * The weight ranges behind the route slider. Every route here has a single
+ * point, so its exposure is (AQI/300)² · minutes and the crossings below are
+ * exact fractions of the normalised score lines.
+ */
+class RouteEvaluationEngineTest {
+
+    private static final double EPSILON = 1e-12;
+
+    @Test
+    void threeRoutesSplitTheWeightsAtTheirCrossings() {
+        List<RouteEvaluationEngine.Tradeoff> tradeoffs = tradeoffs(
+                route(600, 300), route(900, 180), route(1200, 120));
+
+        assertEquals(List.of("Route_1", "Route_2", "Route_3"), ids(tradeoffs));
+        assertWins(tradeoffs.get(0), 0.0, 0.31);
+        assertWins(tradeoffs.get(1), 0.31, 31.0 / 64);
+        assertWins(tradeoffs.get(2), 31.0 / 64, 1.0);
+    }
+
+    @Test
+    void dominatedRouteIsLeftOffTheFrontier() {
+        // Route_4 is slower and dirtier than every other route
+        List<RouteEvaluationEngine.Tradeoff> tradeoffs = tradeoffs(
+                route(600, 300), route(900, 180), route(1200, 120), route(1500, 200));
+
+        assertEquals(List.of("Route_1", "Route_2", "Route_3"), ids(tradeoffs));
+        assertWins(tradeoffs.get(0), 0.0, 191.0 / 605);
+        assertWins(tradeoffs.get(1), 191.0 / 605, 191.0 / 389);
+        assertWins(tradeoffs.get(2), 191.0 / 389, 1.0);
+    }
+
+    @Test
+    void identicalRoutesGoToTheFirstInInputOrder() {
+        List<RouteEvaluationEngine.Tradeoff> tradeoffs = tradeoffs(route(900, 150), route(900, 150));
+
+        // Neither beats the other, so both stay on the frontier
+        assertEquals(List.of("Route_1", "Route_2"), ids(tradeoffs));
+        assertWins(tradeoffs.get(0), 0.0, 1.0);
+        assertFalse(tradeoffs.get(1).wins());
+    }
+
+    @Test
+    void singleRouteWinsEveryWeight() {
+        List<RouteEvaluationEngine.Tradeoff> tradeoffs = tradeoffs(route(900, 150));
+
+        assertEquals(List.of("Route_1"), ids(tradeoffs));
+        assertWins(tradeoffs.get(0), 0.0, 1.0);
+    }
+
+    @Test
+    void routeThroughACommonCrossingNeverWins() {
+        // All three score lines meet at w = 1837/4320; the middle one only touches the envelope there
+        double crossing = 1837.0 / 4320;
+        double[][] routes = {route(900, 170), route(1200, 130), route(1800, 70)};
+
+        for (int[] order : new int[][] {{0, 1, 2}, {1, 0, 2}, {2, 1, 0}, {1, 2, 0}}) {
+            double[][] permuted = new double[3][];
+            for (int i = 0; i < 3; i++) permuted[i] = routes[order[i]];
+            List<RouteEvaluationEngine.Tradeoff> tradeoffs = tradeoffs(permuted);
+
+            String middle = "Route_" + (indexOf(order, 1) + 1);
+            assertEquals(3, tradeoffs.size());
+            assertWins(tradeoffs.get(0), 0.0, crossing);
+            assertFalse(tradeoffs.get(1).wins(), "middle route " + middle);
+            assertEquals(middle, tradeoffs.get(1).routeId());
+            assertWins(tradeoffs.get(2), crossing, 1.0);
+        }
+    }
+
+    private static void assertWins(RouteEvaluationEngine.Tradeoff tradeoff, double from, double to) {
+        assertTrue(tradeoff.wins(), tradeoff.routeId() + " should win somewhere");
+        assertEquals(from, tradeoff.weightFrom(), EPSILON, tradeoff.routeId() + " weight_from");
+        assertEquals(to, tradeoff.weightTo(), EPSILON, tradeoff.routeId() + " weight_to");
+    }
+
+    /** One route: Google seconds and the AQI of its single point. */
+    private static double[] route(double seconds, double aqi) {
+        return new double[] {seconds, aqi};
+    }
+
+    private static List<RouteEvaluationEngine.Tradeoff> tradeoffs(double[]... routes) {
+        int n = routes.length;
+        String[] ids = new String[n];
+        double[] seconds = new double[n];
+        double[][] aqi = new double[n][];
+        double[][] pm25 = new double[n][];
+        double[] avgAqi = new double[n];
+        double[] avgPm25 = new double[n];
+        for (int r = 0; r < n; r++) {
+            ids[r] = "Route_" + (r + 1);
+            seconds[r] = routes[r][0];
+            aqi[r] = new double[] {routes[r][1]};
+            pm25[r] = new double[0];
+        }
+        Arrays.fill(avgAqi, Double.NaN);
+        Arrays.fill(avgPm25, Double.NaN);
+
+        RouteSet set = new RouteSet(ids, seconds, aqi, pm25, avgAqi, avgPm25);
+        return RouteEvaluationEngine.evaluate(set, 0.5).tradeoffs();
+    }
+
+    private static List<String> ids(List<RouteEvaluationEngine.Tradeoff> tradeoffs) {
+        return tradeoffs.stream().map(RouteEvaluationEngine.Tradeoff::routeId).toList();
+    }
+
+    private static int indexOf(int[] values, int value) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == value) return i;
+        }
+        return -1;
+    }
+}
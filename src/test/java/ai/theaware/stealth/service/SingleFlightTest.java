@@ -0,0 +1,148 @@
+package ai.theaware.stealth.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Waiters on a shared call: they get the leader's result, but not the
+ * failures that belong to the leader's request, and not past their own
+ * deadline.
+ */
+@Timeout(10)
+class SingleFlightTest {
+
+    private final SingleFlight singleFlight = new SingleFlight(new SimpleMeterRegistry());
+    private final ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor();
+
+    @AfterEach
+    void shutDown() {
+        threads.shutdownNow();
+    }
+
+    @Test
+    void waiterSharesTheLeadersResult() throws Exception {
+        CountDownLatch leading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+
+        Future<String> leader = threads.submit(() -> singleFlight.execute("stage", "k", () -> {
+            calls.incrementAndGet();
+            leading.countDown();
+            release.await();
+            return "value";
+        }));
+        leading.await();
+        Future<String> waiter = threads.submit(() -> singleFlight.execute("stage", "k", () -> {
+            calls.incrementAndGet();
+            return "own";
+        }));
+        awaitWaiting();
+        release.countDown();
+
+        assertEquals("value", leader.get(5, TimeUnit.SECONDS));
+        assertEquals("value", waiter.get(5, TimeUnit.SECONDS));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void waiterRetriesWhenTheLeaderIsCancelled() throws Exception {
+        CountDownLatch leading = new CountDownLatch(1);
+
+        Future<String> leader = threads.submit(() -> singleFlight.execute("stage", "k", () -> {
+            leading.countDown();
+            Thread.sleep(10_000);
+            return "leader";
+        }));
+        leading.await();
+        Future<String> waiter = threads.submit(() -> singleFlight.execute("stage", "k", () -> "retried"));
+        awaitWaiting();
+
+        leader.cancel(true);
+
+        assertEquals("retried", waiter.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void waiterRetriesWhenTheLeadersUserIsOutOfQuota() throws Exception {
+        CountDownLatch leading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = threads.submit(() -> singleFlight.execute("stage", "k", () -> {
+            leading.countDown();
+            release.await();
+            throw new QuotaExceededException(DependencyGuard.GOOGLE, "user", Duration.ofSeconds(12));
+        }));
+        leading.await();
+        Future<String> waiter = threads.submit(() -> singleFlight.execute("stage", "k", () -> "own quota"));
+        awaitWaiting();
+        release.countDown();
+
+        assertEquals("own quota", waiter.get(5, TimeUnit.SECONDS));
+        assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void waiterStopsAtItsOwnDeadline() throws Exception {
+        CountDownLatch leading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = threads.submit(() -> singleFlight.execute("stage", "k", () -> {
+            leading.countDown();
+            release.await();
+            return "late";
+        }));
+        leading.await();
+
+        Instant deadline = Instant.now().plusMillis(100);
+        long start = System.nanoTime();
+        assertThrows(DependencyUnavailableException.class, () -> Deadline.within(deadline,
+                () -> singleFlight.execute("stage", "k", () -> "own")));
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(2)) < 0);
+        assertFalse(Thread.currentThread().isInterrupted());
+
+        release.countDown();
+        assertEquals("late", leader.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void waiterSeesTheCallsOwnFailure() throws Exception {
+        CountDownLatch leading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = threads.submit(() -> singleFlight.execute("stage", "k", () -> {
+            leading.countDown();
+            release.await();
+            throw new IllegalStateException("dependency said no");
+        }));
+        leading.await();
+        Future<String> waiter = threads.submit(() -> singleFlight.execute("stage", "k", () -> "own"));
+        awaitWaiting();
+        release.countDown();
+
+        Exception failure = assertThrows(Exception.class, () -> waiter.get(5, TimeUnit.SECONDS));
+        assertTrue(failure.getCause() instanceof IllegalStateException, failure::toString);
+        assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+    }
+
+    /** Gives a submitted waiter time to join the flight; there is no hook to observe it. */
+    private static void awaitWaiting() throws InterruptedException {
+        Thread.sleep(100);
+    }
+}
@@ -0,0 +1,118 @@
+package ai.theaware.stealth.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import ai.theaware.stealth.dto.PackedPolyline;
+import ai.theaware.stealth.dto.PredictionResponseDTO.RouteForecast;
+import ai.theaware.stealth.dto.PredictionResponseDTO.StationForecastEntry;
+
+/**
+ * Deterministic synthetic route fixtures shaped like the real pipeline data:
+ * Google overview polylines around Durgapur and AI "route_analysis" blocks.
+ *
+ * Every generator takes a seed so a benchmark run is reproducible across forks.
+ */
+final class SyntheticRoutes {
+
+    static final double ORIGIN_LAT = 23.5204;
+    static final double ORIGIN_LNG = 87.3119;
+
+    private SyntheticRoutes() {}
+
+    /**
+     * A meandering polyline of {@code points} vertices spaced 20–200 m apart,
+     * similar to a decoded Google overview polyline.
+     */
+    static PackedPolyline polyline(int points, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        PackedPolyline.Builder path = new PackedPolyline.Builder(points);
+
+        double lat = ORIGIN_LAT;
+        double lng = ORIGIN_LNG;
+        double heading = random.nextDouble(0, 2 * Math.PI);
+        double metersPerDegLat = 111_320.0;
+        double metersPerDegLng = 111_320.0 * Math.cos(Math.toRadians(ORIGIN_LAT));
+
+        for (int i = 0; i < points; i++) {
+            path.add(lat, lng);
+            heading += random.nextDouble(-0.6, 0.6);
+            double step = random.nextDouble(20.0, 200.0);
+            lat += step * Math.cos(heading) / metersPerDegLat;
+            lng += step * Math.sin(heading) / metersPerDegLng;
+        }
+        return path.build();
+    }
+
+    /** Route forecasts as {@code buildRouteForecastsFromAnalysis} produces them. */
+    static Map<String, RouteForecast> routeForecasts(int alternatives, int points, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        Map<String, RouteForecast> forecasts = new LinkedHashMap<>();
+
+        for (int r = 1; r <= alternatives; r++) {
+            List<StationForecastEntry> entries = new ArrayList<>(points);
+            for (int i = 0; i < points; i++) {
+                StationForecastEntry entry = new StationForecastEntry();
+                entry.setAqi(random.nextDouble(40.0, 260.0));
+                entries.add(entry);
+            }
+            RouteForecast forecast = new RouteForecast();
+            forecast.setForecast(entries);
+            forecasts.put("Route_" + r, forecast);
+        }
+        return forecasts;
+    }
+
+    /** Durations in minutes keyed like {@code extractDurationsMap}. */
+    static Map<String, Double> routeDurations(int alternatives, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        Map<String, Double> durations = new LinkedHashMap<>();
+        for (int r = 1; r <= alternatives; r++) {
+            durations.put("Route_" + r, random.nextDouble(8.0, 75.0));
+        }
+        return durations;
+    }
+
+    /**
+     * A "route_analysis" block in the shape returned by the AI service's
+     * /analyze-routes endpoint: human-readable duration, precomputed averages
+     * and one details map per resampled point.
+     */
+    static Map<String, Object> routeAnalysis(int alternatives, int points, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        Map<String, Object> analysis = new LinkedHashMap<>();
+
+        for (int r = 1; r <= alternatives; r++) {
+            List<Object> details = new ArrayList<>(points);
+            double pm25Sum = 0.0;
+            for (int i = 0; i < points; i++) {
+                Map<String, Object> detail = new LinkedHashMap<>();
+                double pm25 = random.nextDouble(10.0, 150.0);
+                pm25Sum += pm25;
+                detail.put("lat", ORIGIN_LAT + i * 1e-4);
+                detail.put("lng", ORIGIN_LNG + i * 1e-4);
+                detail.put("aqi", random.nextDouble(40.0, 260.0));
+                detail.put("pm25", pm25);
+                detail.put("pm10", random.nextDouble(20.0, 250.0));
+                detail.put("co", random.nextDouble(200.0, 900.0));
+                details.add(detail);
+            }
+
+            int minutes = random.nextInt(8, 95);
+            String duration = minutes >= 60
+                    ? (minutes / 60) + " hour " + (minutes % 60) + " mins"
+                    : minutes + " mins";
+
+            Map<String, Object> routeData = new LinkedHashMap<>();
+            routeData.put("distance", random.nextInt(2, 40) + " km");
+            routeData.put("duration", duration);
+            routeData.put("avg_pm25", Math.round(pm25Sum / points * 100.0) / 100.0);
+            routeData.put("details", details);
+            analysis.put("Route_" + r, routeData);
+        }
+        return analysis;
+    }
+}